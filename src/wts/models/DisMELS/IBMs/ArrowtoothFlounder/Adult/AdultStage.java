@@ -16,6 +16,15 @@ import java.util.logging.Logger;
 import org.openide.util.lookup.ServiceProvider;
 import wts.models.DisMELS.IBMs.ArrowtoothFlounder.EggStage.EggStage;
 import wts.models.DisMELS.IBMs.ArrowtoothFlounder.EggStage.EggStageAttributes;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.FieldRequirements;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.FieldRequirements.Layers;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.GridCellID;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.LifeStageEvent;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.LifeStageEvents;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.LineageStore;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.StageExits;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.StageTimer;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.SubCycling;
 import wts.models.DisMELS.framework.*;
 import wts.models.DisMELS.framework.IBMFunctions.IBMFunctionInterface;
 import wts.models.utilities.CalendarIF;
@@ -83,6 +92,8 @@ public class AdultStage extends AbstractLHS {
     protected double meanTimeToSpawn;
     /** flag to randomize spawning */
     protected boolean randomizeSpawning;
+    /** number of model time steps between updates of movement, growth, mortality and environmental variables */
+    protected int stepsPerUpdate = 1;
     
     
         //fields that reflect (new) attribute values
@@ -96,6 +107,8 @@ public class AdultStage extends AbstractLHS {
     protected double maturity = 0;
     /** elapsed time to spawn (days) */
     protected double timeToSpawn = 366;
+    /** model time (s) of the next spawning event */
+    protected double spawnTime = Double.POSITIVE_INFINITY;
     /** in situ temperature (deg C) */
     protected double temperature = 0;
     /** in situ salinity */
@@ -104,6 +117,12 @@ public class AdultStage extends AbstractLHS {
             //other fields
     /** number of individuals transitioning to next stage */
     private double numTrans;  
+    /** grid cell of the last position (re-uses gridCellID while in the same cell) */
+    private GridCellID gridCell = null;
+    /** flag indicating this stage has been added to the LineageStore */
+    private boolean isInLineage = false;
+    /** flag indicating the attributes need to be updated from the instance variables */
+    private boolean attsDirty = false;
      /** day of year */
     private double dayOfYear;
      /** fecundity as number of spawned class objects to create */
@@ -112,6 +131,10 @@ public class AdultStage extends AbstractLHS {
     private boolean isSpawningSeason;
     /** flag to clean up after spawning */
     private boolean doOnceAfterSpawningSeason = true;
+    /** number of model time steps since the last update */
+    private int numPendingSteps = 0;
+    /** elapsed time (s) since the last update */
+    private double dtPending = 0;
    
     /** IBM function selected for growth */
     private IBMFunctionInterface fcnGrowth = null; 
@@ -126,6 +149,15 @@ public class AdultStage extends AbstractLHS {
     public static boolean debug = false;
     /** logger for class */
     private static final Logger logger = Logger.getLogger(AdultStage.class.getName());
+    /** timer for the phases of the time step (see StageTimer) */
+    private static final StageTimer timer = StageTimer.getInstance("AdultStage");
+    /** physical fields used by the stage (see FieldRequirements) */
+    public static final FieldRequirements FIELD_REQUIREMENTS = new FieldRequirements()
+            .add("h",Layers.HORIZONTAL).add("zeta",Layers.HORIZONTAL)
+            .add("u",Layers.ALL).add("v",Layers.ALL).add("w",Layers.ALL)
+            .add("temp",Layers.ALL).add("salt",Layers.ALL).freeze();
+    /** spawning season status for the current model time, shared by all adults */
+    private static volatile SpawningSeasonStatus seasonStatus = null;
     
     /**
      * This constructor is provided only to facilitate the ServiceProvider functionality.
@@ -223,6 +255,7 @@ public class AdultStage extends AbstractLHS {
      */
     @Override
     public AdultStageAttributes getAttributes() {
+        if (attsDirty) updateAttributes();
         return atts;
     }
 
@@ -434,6 +467,8 @@ public class AdultStage extends AbstractLHS {
                 params.getValue(params.PARAM_meanTimeToSpawn,meanTimeToSpawn);
         randomizeSpawning = 
                 params.getValue(params.PARAM_randomizeTransitions,true);
+        stepsPerUpdate = (int) Math.max(1,Math.round(
+                params.getValue(params.PARAM_stepsPerUpdate,(double) stepsPerUpdate)));
     }
     
     /**
@@ -462,13 +497,18 @@ public class AdultStage extends AbstractLHS {
         output.clear();
         LifeStageInterface nLHS;
         if ((ageInStage+dtp>=minStageDuration)&&(size>=minSizeAtTrans)) {
+            completePendingUpdate();//new stage starts from the current state
             nLHS = createMetamorphosedIndividual();
-            if (nLHS!=null) output.add(nLHS);
+            if (nLHS!=null) {
+                output.add(nLHS);
+                if (LifeStageEvents.isEnabled()) LifeStageEvents.fireTransition(this,time,lat,lon,depth,nLHS);
+            }
         }
         return output;
     }
 
     private LifeStageInterface createMetamorphosedIndividual() {
+        if (attsDirty) updateAttributes();//new individuals are created from the attributes
         LifeStageInterface nLHS = null;
         try {
             //create LHS with "output" stage
@@ -511,66 +551,76 @@ public class AdultStage extends AbstractLHS {
     public List<LifeStageInterface> getSpawnedIndividuals() {
         output.clear();
         //logger.info("Adult "+id+": "+isSpawningSeason+", "+elapsedTimeToSpawn);
-        if (isSpawningSeason && (timeToSpawn<0)) doSpawning();
+        if (isSpawningSeason && (time>spawnTime)) doSpawning();
         return output;
     }
     
     private void doSpawning() {
+        completePendingUpdate();//spawned individuals start from the current state
+        if (attsDirty) updateAttributes();//new individuals are created from the attributes
         try {
             //create number of new individuals = fecundity
             //logger.info("Adult"+id+" spawning: fecundity = "+fecundity);
             LifeStageInterface nLHS = null;
             LifeStageAttributesInterface newAttsI = null;
+            EggStage prototype = null;
             fecundity = (Double)fcnFecundity.calculate(new double[]{size});
             for (int i=0;i<fecundity;i++) {
-                /** 
-                 * For each individual, we need to:
-                 *          1) create new LHS instance.
-                 *          2. assign new id to new instance (gets done automatically).
-                 *          3) assign current LHS id to new LHS as parentID
-                 *          4) assign current LHS id to new LHS origID
-                 *          5) set number in new LHS to 1.TODO: change this to a variable.
-                 *          6) set age and ageInStage to 0 in new instance.
-                 *          7) copy other attributes.
-                 */
-                nLHS = LHS_Factory.createSpawnedLHS(typeName);
-                newAttsI = nLHS.getAttributes();
-                if (newAttsI instanceof EggStageAttributes) {
-                    EggStageAttributes newAtts = (EggStageAttributes) newAttsI;
-                    //newAtts.setValue(LifeStageAttributesInterface.PROP_id,         -1);<-don't need to update this
-                    newAtts.setValue(LifeStageAttributesInterface.PROP_parentID,   atts.getValue(LifeStageAttributesInterface.PROP_id));
-                    newAtts.setValue(LifeStageAttributesInterface.PROP_origID,     atts.getValue(LifeStageAttributesInterface.PROP_id));
-                    newAtts.setValue(LifeStageAttributesInterface.PROP_startTime,  time);
-                    newAtts.setValue(LifeStageAttributesInterface.PROP_time,       atts.getValue(LifeStageAttributesInterface.PROP_time));
-                    newAtts.setValue(LifeStageAttributesInterface.PROP_horizType,  atts.getValue(LifeStageAttributesInterface.PROP_horizType));
-                    newAtts.setValue(LifeStageAttributesInterface.PROP_vertType,   atts.getValue(LifeStageAttributesInterface.PROP_vertType));
-                    newAtts.setValue(LifeStageAttributesInterface.PROP_horizPos1,  atts.getValue(LifeStageAttributesInterface.PROP_horizPos1));
-                    newAtts.setValue(LifeStageAttributesInterface.PROP_horizPos2,  atts.getValue(LifeStageAttributesInterface.PROP_horizPos2));
-                    newAtts.setValue(LifeStageAttributesInterface.PROP_vertPos,    atts.getValue(LifeStageAttributesInterface.PROP_vertPos));
-                    newAtts.setValue(LifeStageAttributesInterface.PROP_gridCellID, atts.getValue(LifeStageAttributesInterface.PROP_gridCellID));
-                    newAtts.setValue(LifeStageAttributesInterface.PROP_track,      atts.getValue(LifeStageAttributesInterface.PROP_track));
-                    newAtts.setValue(LifeStageAttributesInterface.PROP_active,     true);
-                    newAtts.setValue(LifeStageAttributesInterface.PROP_alive,      true);
-                    newAtts.setValue(LifeStageAttributesInterface.PROP_attached,   true);
-                    newAtts.setValue(LifeStageAttributesInterface.PROP_age,        0.0);
-                    newAtts.setValue(LifeStageAttributesInterface.PROP_ageInStage, 0.0);
-                    newAtts.setValue(LifeStageAttributesInterface.PROP_number,     1.0);//TODO:change this to fecundity/numSpawnPerIndiv
-//                    newAtts.setValue(EggStageAttributes.PROP_salinity,   atts.getValue(atts.PROP_salinity));
-//                    newAtts.setValue(EggStageAttributes.PROP_temperature,atts.getValue(atts.PROP_temperature));
-                    //copy LagrangianParticle information
-                    nLHS.setLagrangianParticle(lp);
-                    //start track at last position of oldLHS track
-                    nLHS.startTrack(track.get(track.size()-1),COORDINATE_TYPE_PROJECTED);
-                    nLHS.startTrack(trackLL.get(trackLL.size()-1),COORDINATE_TYPE_GEOGRAPHIC);
-                    //update local variables to capture changes made here
-                    nLHS.setAttributes(newAtts);
+                if (prototype!=null) {
+                    //remaining eggs from this event are copies of the first one
+                    nLHS = prototype.createSibling();
                 } else {
-                    //should throw error
-                    logger.info("AdultStage.doSpawning(): no match for attributes type:"+newAttsI.toString());
+                    /** 
+                     * For each individual, we need to:
+                     *          1) create new LHS instance.
+                     *          2. assign new id to new instance (gets done automatically).
+                     *          3) assign current LHS id to new LHS as parentID
+                     *          4) assign current LHS id to new LHS origID
+                     *          5) set number in new LHS to 1.TODO: change this to a variable.
+                     *          6) set age and ageInStage to 0 in new instance.
+                     *          7) copy other attributes.
+                     */
+                    nLHS = LHS_Factory.createSpawnedLHS(typeName);
+                    newAttsI = nLHS.getAttributes();
+                    if (newAttsI instanceof EggStageAttributes) {
+                        EggStageAttributes newAtts = (EggStageAttributes) newAttsI;
+                        //newAtts.setValue(LifeStageAttributesInterface.PROP_id,         -1);<-don't need to update this
+                        newAtts.setValue(LifeStageAttributesInterface.PROP_parentID,   atts.getValue(LifeStageAttributesInterface.PROP_id));
+                        newAtts.setValue(LifeStageAttributesInterface.PROP_origID,     atts.getValue(LifeStageAttributesInterface.PROP_id));
+                        newAtts.setValue(LifeStageAttributesInterface.PROP_startTime,  time);
+                        newAtts.setValue(LifeStageAttributesInterface.PROP_time,       atts.getValue(LifeStageAttributesInterface.PROP_time));
+                        newAtts.setValue(LifeStageAttributesInterface.PROP_horizType,  atts.getValue(LifeStageAttributesInterface.PROP_horizType));
+                        newAtts.setValue(LifeStageAttributesInterface.PROP_vertType,   atts.getValue(LifeStageAttributesInterface.PROP_vertType));
+                        newAtts.setValue(LifeStageAttributesInterface.PROP_horizPos1,  atts.getValue(LifeStageAttributesInterface.PROP_horizPos1));
+                        newAtts.setValue(LifeStageAttributesInterface.PROP_horizPos2,  atts.getValue(LifeStageAttributesInterface.PROP_horizPos2));
+                        newAtts.setValue(LifeStageAttributesInterface.PROP_vertPos,    atts.getValue(LifeStageAttributesInterface.PROP_vertPos));
+                        newAtts.setValue(LifeStageAttributesInterface.PROP_gridCellID, atts.getValue(LifeStageAttributesInterface.PROP_gridCellID));
+                        newAtts.setValue(LifeStageAttributesInterface.PROP_track,      atts.getValue(LifeStageAttributesInterface.PROP_track));
+                        newAtts.setValue(LifeStageAttributesInterface.PROP_active,     true);
+                        newAtts.setValue(LifeStageAttributesInterface.PROP_alive,      true);
+                        newAtts.setValue(LifeStageAttributesInterface.PROP_attached,   true);
+                        newAtts.setValue(LifeStageAttributesInterface.PROP_age,        0.0);
+                        newAtts.setValue(LifeStageAttributesInterface.PROP_ageInStage, 0.0);
+                        newAtts.setValue(LifeStageAttributesInterface.PROP_number,     1.0);//TODO:change this to fecundity/numSpawnPerIndiv
+//                        newAtts.setValue(EggStageAttributes.PROP_salinity,   atts.getValue(atts.PROP_salinity));
+//                        newAtts.setValue(EggStageAttributes.PROP_temperature,atts.getValue(atts.PROP_temperature));
+                        //copy LagrangianParticle information
+                        nLHS.setLagrangianParticle(lp);
+                        //start track at last position of oldLHS track
+                        nLHS.startTrack(track.get(track.size()-1),COORDINATE_TYPE_PROJECTED);
+                        nLHS.startTrack(trackLL.get(trackLL.size()-1),COORDINATE_TYPE_GEOGRAPHIC);
+                        //update local variables to capture changes made here
+                        nLHS.setAttributes(newAtts);
+                    } else {
+                        //should throw error
+                        logger.info("AdultStage.doSpawning(): no match for attributes type:"+newAttsI.toString());
+                    }
+                    if (nLHS instanceof EggStage) prototype = (EggStage) nLHS;
                 }
                 output.add(nLHS);
                 nLHS = null;
             }
+            if (LifeStageEvents.isEnabled()) LifeStageEvents.fireSpawning(this,time,number,lat,lon,depth,output.size());
             
             //reset elapsed time to spawn for next spawning
             if (isBatchSpawner) {
@@ -584,6 +634,7 @@ public class AdultStage extends AbstractLHS {
                 //spawning only occurs once per season, so set to infinity
                 timeToSpawn = Double.POSITIVE_INFINITY;
             }
+            spawnTime = time+timeToSpawn;
         } catch (IllegalAccessException | InstantiationException ex) {
             ex.printStackTrace();
         }
@@ -624,6 +675,7 @@ public class AdultStage extends AbstractLHS {
                     timeToSpawn = (lengthOfSpawningSeason-(dayOfYear-firstDayOfSpawning))/2.0;
                 }
             }
+            spawnTime = time+timeToSpawn;
         }
         
         //reset calendar time to model time
@@ -644,6 +696,8 @@ public class AdultStage extends AbstractLHS {
         zPos       = atts.getValue(LifeStageAttributesInterface.PROP_vertPos,zPos);
         time       = startTime;
         numTrans   = 0.0; //set numTrans to zero
+        numPendingSteps = 0;
+        dtPending  = 0.0;
         if (debug) {
             logger.info("\n---------------Setting initial position------------");
             logger.info(hType+cc+vType+cc+startTime+cc+xPos+cc+yPos+cc+zPos);
@@ -687,6 +741,7 @@ public class AdultStage extends AbstractLHS {
      */
     private void setupSpawningSeason() {
         doOnceAfterSpawningSeason = false;
+        spawnTime = Double.POSITIVE_INFINITY;//scheduled when the season starts
         //Set up time of first spawning
         if (isBatchSpawner) {
             if (randomizeSpawning) {
@@ -705,21 +760,48 @@ public class AdultStage extends AbstractLHS {
     
     @Override
     public void step(double dt) throws ArrayIndexOutOfBoundsException {
+        if (!isInLineage&&LineageStore.isRecording()) isInLineage = LineageStore.recordStageEntry(this,time,number);
         //determine daytime/nighttime for vertical migration & calc indiv. W
-        dayOfYear = globalInfo.getCalendar().getYearDay();
+        SpawningSeasonStatus status = getSpawningSeasonStatus();
+        dayOfYear = status.dayOfYear;
 //        isDaytime = DateTimeFunctions.isDaylight(lon,lat,dayOfYear);
-        isSpawningSeason = DateTimeFunctions.isBetweenDOY(dayOfYear,firstDayOfSpawning,firstDayOfSpawning+lengthOfSpawningSeason);
+        isSpawningSeason = status.isSpawningSeason;
         if (isSpawningSeason) {
-            timeToSpawn = timeToSpawn-dt;
+            if (!doOnceAfterSpawningSeason) {
+                //first step of the season, so schedule the next spawning event
+                spawnTime = time+timeToSpawn;
+            }
             doOnceAfterSpawningSeason = true;
         } else {
             if (doOnceAfterSpawningSeason) {
                 setupSpawningSeason();
             }
         }
+        time = time+dt;
+        //movement, growth, mortality, position and environmental variables
+        //are updated every stepsPerUpdate steps, over the time since the last update
+        dtPending += dt;
+        numPendingSteps++;
+        if (numPendingSteps>=stepsPerUpdate) updateState();
+        updateAge(dt);//stage duration is resolved at the model time step
+        attsDirty = true;//attributes are updated when next needed (see getAttributes())
+    }
+    
+    /**
+     * Advects the individual (currents plus swimming) over the time since
+     * the last update (see SubCycling).
+     * 
+     * @param dtu    - time since the last update, in seconds
+     * @param nSteps - number of model time steps since the last update
+     * @return - the new position (IJK)
+     */
+    private double[] updateMovement(double dtu, int nSteps) {
         //TODO: implement movement here
-        double[] pos;
-            double[] uv = calcUV(dt);
+        boolean timing = StageTimer.isTimingEnabled();
+        long t0 = timing ? System.nanoTime() : 0L;
+        double[] pos = lp.getIJK().clone();
+            double[] uv = calcUV(dtu);
+        if (timing) t0 = timer.lap(StageTimer.CALC_UVW,t0);
             lp.setU(uv[0],lp.getN());
             lp.setV(uv[1],lp.getN());
             lp.doPredictorStep();
@@ -732,21 +814,66 @@ public class AdultStage extends AbstractLHS {
             lp.setV(uv[1],lp.getNP1());
             //now do corrector step
             lp.doCorrectorStep();
-            pos = lp.getIJK();
-        time = time+dt;
-        updateSize(dt);
-        updateNum(dt);
-        updateAge(dt);
+            pos = SubCycling.extrapolate(i3d,lp,pos,nSteps,tolGridEdge);
+        if (timing) timer.lap(StageTimer.TRACKING,t0);
+        return pos;
+    }
+    
+    /**
+     * Updates movement, size, number, position and environmental variables 
+     * over the time elapsed since the last update, and checks whether the 
+     * individual has left the grid or the region of interest.
+     */
+    private void updateState() {
+        double dtu = dtPending;
+        double[] pos = updateMovement(dtu,numPendingSteps);
+        boolean timing = StageTimer.isTimingEnabled();
+        long t0 = timing ? System.nanoTime() : 0L;
+        updateSize(dtu);
+        if (timing) t0 = timer.lap(StageTimer.GROWTH,t0);
+        updateNum(dtu);
+        if (timing) t0 = timer.lap(StageTimer.BIOLOGY,t0);
         updatePosition(pos);
+        if (timing) t0 = timer.lap(StageTimer.POSITION,t0);
         interpolateEnvVars(pos);
-        //check for exiting grid
-        if (i3d.isAtGridEdge(pos,tolGridEdge)){
-            alive=false;
-            active=false;
-            gridCellID=i3d.getGridCellID(pos, tolGridEdge);
-            logger.info("Indiv "+id+" exited grid at ["+pos[0]+","+pos[1]+"]: "+gridCellID);
+        if (timing) t0 = timer.lap(StageTimer.ENVIRONMENT,t0);
+        //check for exiting grid or region of interest
+        attsDirty = true;//attributes are updated when next needed (see getAttributes())
+        StageExits.Exit exit = StageExits.check(this,i3d,tolGridEdge,pos,time,number,lat,lon,depth);
+        if (exit==StageExits.Exit.GRID) gridCellID = i3d.getGridCellID(pos,tolGridEdge);
+        numPendingSteps = 0;
+        dtPending = 0.0;
+    }
+    
+    /**
+     * Brings the state up to the current model time if updates are pending.
+     */
+    private void completePendingUpdate() {
+        if (active&&(numPendingSteps>0)) {
+            updateState();
+            updateAttributes();
         }
-        updateAttributes(); //update the attributes object w/ nmodified values
+    }
+    
+    /**
+     * Returns the spawning season status for the current model time. The 
+     * calendar lookup and day-of-year test are done once per time step for 
+     * all adults sharing the same spawning season parameters.
+     * 
+     * @return - the status
+     */
+    private SpawningSeasonStatus getSpawningSeasonStatus() {
+        CalendarIF cal = globalInfo.getCalendar();
+        long modTime = cal.getTimeOffset();
+        SpawningSeasonStatus status = seasonStatus;
+        if ((status==null)||(status.modTime!=modTime)||
+                (status.firstDayOfSpawning!=firstDayOfSpawning)||
+                (status.lengthOfSpawningSeason!=lengthOfSpawningSeason)) {
+            status = new SpawningSeasonStatus(modTime,cal.getYearDay(),
+                                              firstDayOfSpawning,lengthOfSpawningSeason);
+            seasonStatus = status;
+        }
+        return status;
     }
     
     /**
@@ -772,6 +899,7 @@ public class AdultStage extends AbstractLHS {
         age        = age+dt/DAY_SECS;
         ageInStage = ageInStage+dt/DAY_SECS;
         if (ageInStage>maxStageDuration) {
+            if (active&&LifeStageEvents.isEnabled()) LifeStageEvents.fire(LifeStageEvent.Type.MAX_STAGE_DURATION,this,time,number,lat,lon,depth);
             alive = false;
             active = false;
         }
@@ -807,7 +935,8 @@ public class AdultStage extends AbstractLHS {
         depth = -i3d.calcZfromK(pos[0],pos[1],pos[2]);
         lat   = i3d.interpolateLat(pos);
         lon   = i3d.interpolateLon(pos);
-        gridCellID = ""+Math.round(pos[0])+"_"+Math.round(pos[1]);
+        gridCell   = GridCellID.update(gridCell,gridCellID,pos);
+        gridCellID = gridCell.getID();
         updateTrack();
     }
     
@@ -883,9 +1012,14 @@ public class AdultStage extends AbstractLHS {
 
     @Override
     public String getReport() {
+        //the report reflects the state at the last update (see updateState(...))
+        boolean timing = StageTimer.isTimingEnabled();
+        long t0 = timing ? System.nanoTime() : 0L;
         updateAttributes();//make sure attributes are up to date
         atts.setValue(LifeStageAttributesInterface.PROP_track, getTrackAsString(COORDINATE_TYPE_GEOGRAPHIC));//
-        return atts.getCSV();
+        String csv = atts.getCSV();
+        if (timing) timer.lap(StageTimer.REPORT,t0);
+        return csv;
     }
 
     @Override
@@ -904,6 +1038,7 @@ public class AdultStage extends AbstractLHS {
         atts.setValue(AdultStageAttributes.PROP_weight,weight);
         atts.setValue(AdultStageAttributes.PROP_salinity,salinity);
         atts.setValue(AdultStageAttributes.PROP_temperature,temperature);
+        attsDirty = false;
     }
 
     /**
@@ -918,4 +1053,31 @@ public class AdultStage extends AbstractLHS {
         salinity    = atts.getValue(EggStageAttributes.PROP_salinity,salinity);
         temperature = atts.getValue(EggStageAttributes.PROP_temperature,temperature);
     }
+    
+    /**
+     * Immutable spawning season status for a given model time.
+     */
+    private static final class SpawningSeasonStatus {
+        /** model time (s) */
+        final long modTime;
+        /** day of year */
+        final double dayOfYear;
+        /** day of year of first spawning */
+        final double firstDayOfSpawning;
+        /** length of spawning season (d) */
+        final double lengthOfSpawningSeason;
+        /** spawning season flag */
+        final boolean isSpawningSeason;
+        
+        SpawningSeasonStatus(long modTime, double dayOfYear, 
+                             double firstDayOfSpawning, double lengthOfSpawningSeason) {
+            this.modTime = modTime;
+            this.dayOfYear = dayOfYear;
+            this.firstDayOfSpawning = firstDayOfSpawning;
+            this.lengthOfSpawningSeason = lengthOfSpawningSeason;
+            isSpawningSeason = DateTimeFunctions.isBetweenDOY(dayOfYear,
+                                                              firstDayOfSpawning,
+                                                              firstDayOfSpawning+lengthOfSpawningSeason);
+        }
+    }
 }
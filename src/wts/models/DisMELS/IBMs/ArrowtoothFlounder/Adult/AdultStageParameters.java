@@ -41,7 +41,7 @@ public class AdultStageParameters extends AbstractLHSParameters {
     public static final long serialVersionUID = 1L;
     
     /** the number of IBMParameter objects defined in the class */
-    public static final int numParams = 13;
+    public static final int numParams = 14;
     public static final String PARAM_isSuperIndividual     = "is a super-individual?";
     public static final String PARAM_horizRWP              = "horizontal random walk parameter [m^2]/[s]";
     public static final String PARAM_minStageDuration      = "min stage duration [d]";
@@ -55,6 +55,7 @@ public class AdultStageParameters extends AbstractLHSParameters {
     public static final String PARAM_recoveryPeriod        = "recovery period after spawning (d)";
     public static final String PARAM_meanTimeToSpawn       = "mean time to spawn after recory (d)?";
     public static final String PARAM_randomizeSpawning     = "randomize spawning?";
+    public static final String PARAM_stepsPerUpdate        = "model time steps per update";
     
     /** the number of IBMFunction categories defined in the class */
     public static final int numFunctionCats = 4;
@@ -112,6 +113,7 @@ public class AdultStageParameters extends AbstractLHSParameters {
         key = PARAM_recoveryPeriod;       setOfParamKeys.add(key); mapParams.put(key,new IBMParameterDouble(key,key,0.0));
         key = PARAM_meanTimeToSpawn;      setOfParamKeys.add(key); mapParams.put(key,new IBMParameterDouble(key,key,0.0));
         key = PARAM_randomizeSpawning;    setOfParamKeys.add(key); mapParams.put(key,new IBMParameterBoolean(key,key,false));
+        key = PARAM_stepsPerUpdate;       setOfParamKeys.add(key); mapParams.put(key,new IBMParameterDouble(key,key,1.0));
     }
 
     @Override
@@ -255,7 +257,10 @@ public class AdultStageParameters extends AbstractLHSParameters {
     public AdultStageParameters createInstance(final String[] strv) {
         int c = 0;
         AdultStageParameters params = new AdultStageParameters(strv[c++]);
-        for (String key: setOfParamKeys) params.setValueFromString(key,strv[c++]);
+        for (String key: setOfParamKeys) {
+            //parameters added after a file was written keep their default values
+            if (c<strv.length) params.setValueFromString(key,strv[c++]);
+        }
         return params;
     }
     
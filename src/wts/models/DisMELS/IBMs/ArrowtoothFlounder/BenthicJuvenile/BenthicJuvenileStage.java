@@ -18,6 +18,16 @@ import wts.models.DisMELS.IBMFunctions.Miscellaneous.ConstantFunction;
 import wts.models.DisMELS.IBMFunctions.Mortality.ConstantMortalityRate;
 import wts.models.DisMELS.IBMFunctions.Mortality.TemperatureDependentMortalityRate_Houde1989;
 import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Adult.AdultStage;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.BatchInitializable;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.FieldRequirements;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.FieldRequirements.Layers;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.GridCellID;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.LifeStageEvent;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.LifeStageEvents;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.LineageStore;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.StageExits;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.StageTimer;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.SubCycling;
 import wts.models.DisMELS.framework.*;
 import wts.models.DisMELS.framework.IBMFunctions.IBMFunctionInterface;
 import wts.models.utilities.DateTimeFunctions;
@@ -28,7 +38,7 @@ import wts.roms.model.LagrangianParticle;
  * @author William Stockhausen
  */
 @ServiceProvider(service=LifeStageInterface.class)
-public class BenthicJuvenileStage extends AbstractLHS {
+public class BenthicJuvenileStage extends AbstractLHS implements BatchInitializable {
     
         //Static fields    
             //  Static fields new to this class
@@ -80,6 +90,8 @@ public class BenthicJuvenileStage extends AbstractLHS {
     protected boolean randomizeTransitions;
     /** stage transition rate */
     protected double stageTransRate;
+    /** number of model time steps between updates of movement, growth, mortality and environmental variables */
+    protected int stepsPerUpdate = 1;
     
         //fields that reflect (new) attribute values
     /** size (mm) */
@@ -94,8 +106,18 @@ public class BenthicJuvenileStage extends AbstractLHS {
             //other fields
     /** number of individuals transitioning to next stage */
     private double numTrans;  
+    /** grid cell of the last position (re-uses gridCellID while in the same cell) */
+    private GridCellID gridCell = null;
+    /** flag indicating this stage has been added to the LineageStore */
+    private boolean isInLineage = false;
+    /** flag indicating the attributes need to be updated from the instance variables */
+    private boolean attsDirty = false;
     /** total depth (m) at individual's position */
     private double totalDepth;
+    /** number of model time steps since the last update */
+    private int numPendingSteps = 0;
+    /** elapsed time (s) since the last update */
+    private double dtPending = 0;
     
     /** IBM function selected for development */
     private IBMFunctionInterface fcnGrowth = null; 
@@ -106,6 +128,13 @@ public class BenthicJuvenileStage extends AbstractLHS {
     
     /** logger for class */
     private static final Logger logger = Logger.getLogger(BenthicJuvenileStage.class.getName());
+    /** timer for the phases of the time step (see StageTimer) */
+    private static final StageTimer timer = StageTimer.getInstance("BenthicJuvenileStage");
+    /** physical fields used by the stage (see FieldRequirements) */
+    public static final FieldRequirements FIELD_REQUIREMENTS = new FieldRequirements()
+            .add("h",Layers.HORIZONTAL).add("zeta",Layers.HORIZONTAL)
+            .add("u",Layers.ALL).add("v",Layers.ALL).add("w",Layers.ALL)
+            .add("temp",Layers.ALL).add("salt",Layers.ALL).freeze();
     
     /**
      * Creates a new instance of GenericLHS.  
@@ -209,6 +238,7 @@ public class BenthicJuvenileStage extends AbstractLHS {
      */
     @Override
     public BenthicJuvenileStageAttributes getAttributes() {
+        if (attsDirty) updateAttributes();
         return atts;
     }
 
@@ -401,6 +431,8 @@ public class BenthicJuvenileStage extends AbstractLHS {
                 params.getValue(BenthicJuvenileStageParameters.PARAM_minSize,minSize);
         randomizeTransitions = 
                 params.getValue(BenthicJuvenileStageParameters.PARAM_randomizeTransitions,true);
+        stepsPerUpdate = (int) Math.max(1,Math.round(
+                params.getValue(BenthicJuvenileStageParameters.PARAM_stepsPerUpdate,(double) stepsPerUpdate)));
     }
     
     /**
@@ -437,14 +469,19 @@ public class BenthicJuvenileStage extends AbstractLHS {
         LifeStageInterface nLHS;
         if (((ageInStage+dtp)>=minStageDuration)&&(size>=minSize)) {
             if ((numTrans>0)||!isSuperIndividual){
+                completePendingUpdate();//next stage starts from the current state
                 nLHS = createNextLHS();
-                if (nLHS!=null) output.add(nLHS);
+                if (nLHS!=null) {
+                    output.add(nLHS);
+                    if (LifeStageEvents.isEnabled()) LifeStageEvents.fireTransition(this,time,lat,lon,depth,nLHS);
+                }
             }
         }
         return output;
     }
 
     private LifeStageInterface createNextLHS() {
+        if (attsDirty) updateAttributes();//new individuals are created from the attributes
         LifeStageInterface nLHS = null;
         try {
             //create LHS with "next" stage
@@ -504,6 +541,8 @@ public class BenthicJuvenileStage extends AbstractLHS {
         zPos       = atts.getValue(LifeStageAttributesInterface.PROP_vertPos,zPos);
         time       = startTime;
         numTrans   = 0.0; //set numTrans to zero
+        numPendingSteps = 0;
+        dtPending  = 0.0;
         if (debug) {
             logger.info("\n---------------Setting initial position------------");
             logger.info(hType+cc+vType+cc+startTime+cc+xPos+cc+yPos+cc+zPos);
@@ -563,14 +602,38 @@ public class BenthicJuvenileStage extends AbstractLHS {
     
     @Override
     public void step(double dt) throws ArrayIndexOutOfBoundsException {
+        if (!isInLineage&&LineageStore.isRecording()) isInLineage = LineageStore.recordStageEntry(this,time,number);
+        time = time+dt;
+        //movement, growth, mortality, position and environmental variables
+        //are updated every stepsPerUpdate steps, over the time since the last update
+        dtPending += dt;
+        numPendingSteps++;
+        if (numPendingSteps>=stepsPerUpdate) updateState();
+        updateAge(dt);//stage duration is resolved at the model time step
+        attsDirty = true;//attributes are updated when next needed (see getAttributes())
+    }
+    
+    /**
+     * Advects the individual (currents plus swimming) over the time since 
+     * the last update (see SubCycling), unless it is attached to the bottom.
+     * 
+     * @param dtu    - time since the last update, in seconds
+     * @param nSteps - number of model time steps since the last update
+     * @return - the new position (IJK)
+     */
+    private double[] updateMovement(double dtu, int nSteps) {
+        boolean timing = StageTimer.isTimingEnabled();
+        long t0 = timing ? System.nanoTime() : 0L;
         double[] pos = lp.getIJK();
-        double[] uv = calcUV(pos,dt);//this also sets "attached".
+        double[] uv = calcUV(pos,dtu);//this also sets "attached".
+        if (timing) t0 = timer.lap(StageTimer.CALC_UVW,t0);
         //TODO: attached = TRUE always, at present
         //salinity = totalDepth;//TODO: remove
         if (attached){
             lp.setIJK(pos[0], pos[1], 0.0);//make sure individual is on bottom
         } else {
             //do lagrangian particle tracking
+            double[] pos0 = pos.clone();
             lp.setU(uv[0],lp.getN());
             lp.setV(uv[1],lp.getN());
             lp.setW(0.0,lp.getN());
@@ -586,23 +649,47 @@ public class BenthicJuvenileStage extends AbstractLHS {
             lp.setW(0.0,lp.getNP1());
             //now do corrector step
             lp.doCorrectorStep();
-            pos = lp.getIJK();
+            pos = SubCycling.extrapolate(i3d,lp,pos0,nSteps,tolGridEdge);
             if (debugOps) logger.info("Depth after corrector step = "+(-i3d.calcZfromK(pos[0],pos[1],pos[2])));
         }
-        time = time+dt;
-        updateNum(dt);
-        updateAge(dt);
+        if (timing) timer.lap(StageTimer.TRACKING,t0);
+        return pos;
+    }
+    
+    /**
+     * Updates movement, size, number, position and environmental variables 
+     * over the time elapsed since the last update, and checks whether the 
+     * individual has left the grid or the region of interest.
+     */
+    private void updateState() {
+        double dtu = dtPending;
+        double[] pos = updateMovement(dtu,numPendingSteps);
+        boolean timing = StageTimer.isTimingEnabled();
+        long t0 = timing ? System.nanoTime() : 0L;
+        updateNum(dtu);
+        if (timing) t0 = timer.lap(StageTimer.BIOLOGY,t0);
         updatePosition(pos);
-        updateSize(dt);
+        if (timing) t0 = timer.lap(StageTimer.POSITION,t0);
+        updateSize(dtu);
+        if (timing) t0 = timer.lap(StageTimer.GROWTH,t0);
         interpolateEnvVars(pos);
-        //check for exiting grid
-        if (i3d.isAtGridEdge(pos,tolGridEdge)){
-            alive=false;
-            active=false;
-            gridCellID=i3d.getGridCellID(pos, tolGridEdge);
-            logger.info("Indiv "+id+" exited grid at ["+pos[0]+","+pos[1]+"]: "+gridCellID);
+        if (timing) t0 = timer.lap(StageTimer.ENVIRONMENT,t0);
+        //check for exiting grid or region of interest
+        attsDirty = true;//attributes are updated when next needed (see getAttributes())
+        StageExits.Exit exit = StageExits.check(this,i3d,tolGridEdge,pos,time,number,lat,lon,depth);
+        if (exit==StageExits.Exit.GRID) gridCellID = i3d.getGridCellID(pos,tolGridEdge);
+        numPendingSteps = 0;
+        dtPending = 0.0;
+    }
+    
+    /**
+     * Brings the state up to the current model time if updates are pending.
+     */
+    private void completePendingUpdate() {
+        if (active&&(numPendingSteps>0)) {
+            updateState();
+            updateAttributes();
         }
-        updateAttributes(); //update the attributes object w/ nmodified values
     }
     
     /**
@@ -670,6 +757,7 @@ public class BenthicJuvenileStage extends AbstractLHS {
         age        = age+dt/DAY_SECS;
         ageInStage = ageInStage+dt/DAY_SECS;
         if (ageInStage>maxStageDuration) {
+            if (active&&LifeStageEvents.isEnabled()) LifeStageEvents.fire(LifeStageEvent.Type.MAX_STAGE_DURATION,this,time,number,lat,lon,depth);
             alive = false;
             active = false;
         }
@@ -745,7 +833,8 @@ public class BenthicJuvenileStage extends AbstractLHS {
         depth      = -i3d.calcZfromK(pos[0],pos[1],pos[2]);
         lat        = i3d.interpolateLat(pos);
         lon        = i3d.interpolateLon(pos);
-        gridCellID = ""+Math.round(pos[0])+"_"+Math.round(pos[1]);
+        gridCell   = GridCellID.update(gridCell,gridCellID,pos);
+        gridCellID = gridCell.getID();
         updateTrack();
     }
     
@@ -827,9 +916,14 @@ public class BenthicJuvenileStage extends AbstractLHS {
     
     @Override
     public String getReport() {
+        //the report reflects the state at the last update (see updateState(...))
+        boolean timing = StageTimer.isTimingEnabled();
+        long t0 = timing ? System.nanoTime() : 0L;
         updateAttributes();//make sure attributes are up to date
         atts.setValue(LifeStageAttributesInterface.PROP_track, getTrackAsString(COORDINATE_TYPE_GEOGRAPHIC));//
-        return atts.getCSV();
+        String csv = atts.getCSV();
+        if (timing) timer.lap(StageTimer.REPORT,t0);
+        return csv;
     }
 
     @Override
@@ -847,6 +941,7 @@ public class BenthicJuvenileStage extends AbstractLHS {
         atts.setValue(BenthicJuvenileStageAttributes.PROP_weight,weight);
         atts.setValue(BenthicJuvenileStageAttributes.PROP_salinity,salinity);
         atts.setValue(BenthicJuvenileStageAttributes.PROP_temperature,temperature);
+        attsDirty = false;
     }
 
     /**
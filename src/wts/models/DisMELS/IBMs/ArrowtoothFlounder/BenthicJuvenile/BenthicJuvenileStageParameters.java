@@ -46,7 +46,7 @@ public class BenthicJuvenileStageParameters extends AbstractLHSParameters {
     public static final long serialVersionUID = 1L;
     
     /** the number of IBMParameter objects defined in the class */
-    public static final int numParams = 9;
+    public static final int numParams = 10;
     public static final String PARAM_isSuperIndividual      = "is a super-individual?";
     public static final String PARAM_horizRWP               = "horizontal random walk parameter [m^2]/[s]";
     public static final String PARAM_minStageDuration       = "min stage duration [d]";
@@ -56,6 +56,7 @@ public class BenthicJuvenileStageParameters extends AbstractLHSParameters {
     public static final String PARAM_randomizeTransitions   = "randomize transitions?";
     public static final String PARAM_initialSize            = "initial size in stage (mm)";
     public static final String PARAM_initialWeight          = "initial weight in stage (g)";
+    public static final String PARAM_stepsPerUpdate         = "model time steps per update";
     
     
     /** the number of IBMFunction categories defined in the class */
@@ -109,6 +110,7 @@ public class BenthicJuvenileStageParameters extends AbstractLHSParameters {
         key = PARAM_minSize;              setOfParamKeys.add(key); mapParams.put(key,new IBMParameterDouble(key,key,0.0));
         key = PARAM_minWeight;            setOfParamKeys.add(key); mapParams.put(key,new IBMParameterDouble(key,key,0.0));
         key = PARAM_randomizeTransitions; setOfParamKeys.add(key); mapParams.put(key,new IBMParameterBoolean(key,key,false));
+        key = PARAM_stepsPerUpdate;       setOfParamKeys.add(key); mapParams.put(key,new IBMParameterDouble(key,key,1.0));
     }
 
     @Override
@@ -227,7 +229,10 @@ public class BenthicJuvenileStageParameters extends AbstractLHSParameters {
     public BenthicJuvenileStageParameters createInstance(final String[] strv) {
         int c = 0;
         BenthicJuvenileStageParameters params = new BenthicJuvenileStageParameters(strv[c++]);
-        for (String key: setOfParamKeys) params.setValueFromString(key,strv[c++]);
+        for (String key: setOfParamKeys) {
+            //parameters added after a file was written keep their default values
+            if (c<strv.length) params.setValueFromString(key,strv[c++]);
+        }
         return params;
     }
     
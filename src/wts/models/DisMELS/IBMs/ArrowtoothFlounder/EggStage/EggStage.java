@@ -18,6 +18,19 @@ import wts.models.DisMELS.IBMFunctions.Miscellaneous.ConstantFunction;
 import wts.models.DisMELS.IBMFunctions.Mortality.ConstantMortalityRate;
 import wts.models.DisMELS.IBMFunctions.Mortality.TemperatureDependentMortalityRate_Houde1989;
 import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Larva.LarvaStage;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.BatchInitializable;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.FieldRequirements;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.FieldRequirements.Layers;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.GridCellID;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.InterpolationMemo;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.LifeStageEvent;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.LifeStageEvents;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.LineageStore;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.StageExits;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.StageTimer;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.TrajectoryRecord;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.TrajectoryRecorder;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.TrajectoryReplayable;
 import wts.models.DisMELS.framework.*;
 import wts.models.DisMELS.framework.IBMFunctions.IBMFunctionInterface;
 import wts.models.utilities.DateTimeFunctions;
@@ -28,7 +41,7 @@ import wts.roms.model.LagrangianParticle;
  * @author William Stockhausen
  */
 @ServiceProvider(service=LifeStageInterface.class)
-public class EggStage extends AbstractLHS {
+public class EggStage extends AbstractLHS implements BatchInitializable, TrajectoryReplayable {
     
         //Static fields    
             //  Static fields new to this class
@@ -94,6 +107,14 @@ public class EggStage extends AbstractLHS {
             //other fields
     /** number of individuals transitioning to next stage */
     private double numTrans;  
+    /** grid cell of the last position (re-uses gridCellID while in the same cell) */
+    private GridCellID gridCell = null;
+    /** flag indicating this stage has been added to the LineageStore */
+    private boolean isInLineage = false;
+    /** flag indicating the attributes need to be updated from the instance variables */
+    private boolean attsDirty = false;
+    /** flag indicating the start of this individual's path has been recorded */
+    private boolean isRecorded = false;
     /** total depth (m) at individual's position */
     private double totalDepth;
     
@@ -110,6 +131,14 @@ public class EggStage extends AbstractLHS {
     public static boolean debug = false;
     /** logger for class */
     private static final Logger logger = Logger.getLogger(EggStage.class.getName());
+    /** timer for the phases of the time step (see StageTimer) */
+    private static final StageTimer timer = StageTimer.getInstance("EggStage");
+    /** physical fields used by the stage (see FieldRequirements) */
+    public static final FieldRequirements FIELD_REQUIREMENTS = new FieldRequirements()
+            .add("h",Layers.HORIZONTAL).add("zeta",Layers.HORIZONTAL)
+            .add("u",Layers.ALL).add("v",Layers.ALL).add("w",Layers.ALL)
+            .add("temp",Layers.ALL).add("salt",Layers.ALL)
+            .addOptional("rho",Layers.ALL).freeze();
     
     /**
      * Creates a new instance of GenericLHS.  
@@ -144,6 +173,57 @@ public class EggStage extends AbstractLHS {
         setParameters(params);
     }
 
+    /**
+     * Creates a new instance of EggStage as a copy of a fully-initialized
+     * prototype. A new id number is calculated in the superclass and assigned
+     * to the new instance's id. The attributes are cloned (each egg needs its
+     * own), and all other attribute values, the Lagrangian particle and the 
+     * start of the track are copied from the prototype. The parameters object,
+     * the parameter values and the IBM functions are shared with the 
+     * prototype directly, without looking them up again (setParameters(...)).
+     */
+    private EggStage(EggStage prototype) 
+                throws InstantiationException, IllegalAccessException {
+        super(prototype.typeName);
+        atts = (EggStageAttributes) prototype.atts.clone();
+        atts.setValue(LifeStageAttributesInterface.PROP_id,id);
+        setAttributesFromSubClass(atts);  //set object in the superclass
+        params = prototype.params;
+        setParametersFromSubClass(params);//set object in the superclass
+        isSuperIndividual    = prototype.isSuperIndividual;
+        horizRWP             = prototype.horizRWP;
+        minStageDuration     = prototype.minStageDuration;
+        maxStageDuration     = prototype.maxStageDuration;
+        minDevStage          = prototype.minDevStage;
+        maxDevStage          = prototype.maxDevStage;
+        randomizeTransitions = prototype.randomizeTransitions;
+        fcnDev  = prototype.fcnDev;
+        fcnMort = prototype.fcnMort;
+        fcnVM   = prototype.fcnVM;
+        fcnVV   = prototype.fcnVV;
+        //copy LagrangianParticle information
+        this.setLagrangianParticle(prototype.getLagrangianParticle());
+        //start track at last position of prototype track
+        this.startTrack(prototype.getLastPosition(COORDINATE_TYPE_PROJECTED),COORDINATE_TYPE_PROJECTED);
+        this.startTrack(prototype.getLastPosition(COORDINATE_TYPE_GEOGRAPHIC),COORDINATE_TYPE_GEOGRAPHIC);
+        //update local variables to capture changes made here
+        updateVariables();
+    }
+
+    /**
+     * Creates a new egg with a new id that is otherwise identical to this one.
+     * Use this to create the remaining eggs from a spawning event once the 
+     * first egg has been created and initialized through the LHS_Factory.
+     * 
+     * @return - the new instance
+     * @throws java.lang.InstantiationException
+     * @throws java.lang.IllegalAccessException
+     */
+    public EggStage createSibling() 
+                        throws InstantiationException, IllegalAccessException {
+        return new EggStage(this);
+    }
+
     /**
      * Creates a new instance of LHS with type name and
      * attribute values given by input String array.
@@ -213,6 +293,7 @@ public class EggStage extends AbstractLHS {
      */
     @Override
     public EggStageAttributes getAttributes() {
+        if (attsDirty) updateAttributes();
         return atts;
     }
 
@@ -446,13 +527,17 @@ public class EggStage extends AbstractLHS {
         if (((ageInStage+dtp)>=minStageDuration)&&(devStage>=minDevStage)) {
             if ((numTrans>0)||!isSuperIndividual){
                 nLHS = createNextLHS();
-                if (nLHS!=null) output.add(nLHS);
+                if (nLHS!=null) {
+                    output.add(nLHS);
+                    if (LifeStageEvents.isEnabled()) LifeStageEvents.fireTransition(this,time,lat,lon,depth,nLHS);
+                }
             }
         }
         return output;
     }
 
     private LifeStageInterface createNextLHS() {
+        if (attsDirty) updateAttributes();//new individuals are created from the attributes
         LifeStageInterface nLHS = null;
         try {
             //create LHS with "next" stage
@@ -569,10 +654,37 @@ public class EggStage extends AbstractLHS {
         }
     }
     
+    /**
+     * Checks whether a release point is in the water and away from the grid
+     * edge (so an egg released there is not immediately lost). Uses the
+     * interpolator, so it should be called on the model's thread.
+     * 
+     * @param lon - longitude
+     * @param lat - latitude
+     * @return - true if the point is in the model domain
+     * @throws IllegalStateException if no grid is loaded
+     */
+    public static boolean isInModelDomain(double lon, double lat) {
+        if (i3d==null) throw new IllegalStateException("No grid loaded: cannot check release points");
+        double[] IJ = i3d.getGrid().computeIJfromLL(lat,lon);
+        if ((IJ==null)||i3d.isAtGridEdge(new double[]{IJ[0],IJ[1],0.0},tolGridEdge)) return false;
+        double h = i3d.interpolateBathymetricDepth(IJ);
+        return h>0;//NaN or not positive on land
+    }
+    
     @Override
     public void step(double dt) throws ArrayIndexOutOfBoundsException {
+        if (!isInLineage&&LineageStore.isRecording()) isInLineage = LineageStore.recordStageEntry(this,time,number);
+        if (!isRecorded&&TrajectoryRecorder.isRecording()){
+            updateAttributes();
+            TrajectoryRecorder.begin(this);
+            isRecorded = true;
+        }
+        boolean timing = StageTimer.isTimingEnabled();
+        long t0 = timing ? System.nanoTime() : 0L;
         double[] pos = lp.getIJK();
         double[] uvw = calcUVW(pos,dt);//this also sets "attached" and may change pos[2] to 0
+        if (timing) t0 = timer.lap(StageTimer.CALC_UVW,t0);
         if (attached){
             lp.setIJK(pos[0], pos[1], pos[2]);
         } else {
@@ -595,20 +707,57 @@ public class EggStage extends AbstractLHS {
             pos = lp.getIJK();
             if (debugOps) logger.info("Depth after corrector step = "+(-i3d.calcZfromK(pos[0],pos[1],pos[2])));
         }
+        if (timing) t0 = timer.lap(StageTimer.TRACKING,t0);
         time = time+dt;
         updateNum(dt);
         updateAge(dt);
+        if (timing) t0 = timer.lap(StageTimer.BIOLOGY,t0);
         updatePosition(pos);
+        if (timing) t0 = timer.lap(StageTimer.POSITION,t0);
         updateStage(dt);
+        if (timing) t0 = timer.lap(StageTimer.GROWTH,t0);
         interpolateEnvVars(pos);
-        //check for exiting grid
-        if (i3d.isAtGridEdge(pos,tolGridEdge)){
+        if (timing) t0 = timer.lap(StageTimer.ENVIRONMENT,t0);
+        //check for exiting grid or region of interest
+        attsDirty = true;//attributes are updated when next needed (see getAttributes())
+        StageExits.Exit exit = StageExits.check(this,i3d,tolGridEdge,pos,time,number,lat,lon,depth);
+        if (exit==StageExits.Exit.GRID) gridCellID = i3d.getGridCellID(pos,tolGridEdge);
+        boolean exitedGrid = (exit!=StageExits.Exit.NONE);//replays treat leaving the ROI like leaving the grid
+        if (isRecorded) TrajectoryRecorder.record(id,dt,pos,lat,lon,depth,totalDepth,
+                                                  temperature,salinity,rho,exitedGrid);
+    }
+    
+    /**
+     * Advances the individual one time step along a recorded path. The 
+     * biology is updated as in step(dt), but the position and environmental 
+     * variables are taken from the record. Stage transitions are evaluated
+     * afterwards by the caller (via getMetamorphosedIndividuals(dt)), as in
+     * a model run.
+     * 
+     * @param rec - recorded physical state at the end of the time step
+     */
+    @Override
+    public void stepFromRecord(TrajectoryRecord rec) {
+        double dt = rec.dt;
+        time = time+dt;
+        updateNum(dt);
+        updateAge(dt);
+        totalDepth = rec.totalDepth;
+        depth      = rec.depth;
+        lat        = rec.lat;
+        lon        = rec.lon;
+        gridCell   = GridCellID.update(gridCell,gridCellID,rec.pos);
+        gridCellID = gridCell.getID();
+        lp.setIJK(rec.pos[0],rec.pos[1],rec.pos[2]);//a next stage starts from the recorded position
+        updateStage(dt);
+        temperature = rec.temperature;
+        salinity    = rec.salinity;
+        rho         = rec.rho;
+        if (rec.exitedGrid){
             alive=false;
             active=false;
-            gridCellID=i3d.getGridCellID(pos, tolGridEdge);
-            logger.info("Indiv "+id+" exited grid at ["+pos[0]+","+pos[1]+"]: "+gridCellID);
         }
-        updateAttributes(); //update the attributes object w/ nmodified values
+        attsDirty = true;
     }
     
     /**
@@ -701,6 +850,7 @@ public class EggStage extends AbstractLHS {
         age        = age+dt/DAY_SECS;
         ageInStage = ageInStage+dt/DAY_SECS;
         if (ageInStage>maxStageDuration) {
+            if (active&&LifeStageEvents.isEnabled()) LifeStageEvents.fire(LifeStageEvent.Type.MAX_STAGE_DURATION,this,time,number,lat,lon,depth);
             alive = false;
             active = false;
         }
@@ -718,6 +868,7 @@ public class EggStage extends AbstractLHS {
             devStage += rate*dt/DAY_SECS;
         }
         if (devStage>maxDevStage){
+            if (active&&LifeStageEvents.isEnabled()) LifeStageEvents.fire(LifeStageEvent.Type.MAX_DEV_STAGE,this,time,number,lat,lon,depth);
             alive = false;
             active = false;
         }
@@ -747,18 +898,19 @@ public class EggStage extends AbstractLHS {
     }
     
     private void updatePosition(double[] pos) {
-        totalDepth = i3d.interpolateBathymetricDepth(pos);
-        depth      = -i3d.calcZfromK(pos[0],pos[1],pos[2]);
-        lat        = i3d.interpolateLat(pos);
-        lon        = i3d.interpolateLon(pos);
-        gridCellID = ""+Math.round(pos[0])+"_"+Math.round(pos[1]);
+        totalDepth = InterpolationMemo.interpolateBathymetricDepth(i3d,pos);
+        depth      = InterpolationMemo.calcDepth(i3d,pos);
+        lat        = InterpolationMemo.interpolateLat(i3d,pos);
+        lon        = InterpolationMemo.interpolateLon(i3d,pos);
+        gridCell   = GridCellID.update(gridCell,gridCellID,pos);
+        gridCellID = gridCell.getID();
         updateTrack();
     }
     
     private void interpolateEnvVars(double[] pos) {
-        temperature = i3d.interpolateTemperature(pos);
-        salinity    = i3d.interpolateSalinity(pos);
-        if (i3d.getPhysicalEnvironment().getField("rho")!=null) rho  = i3d.interpolateValue(pos,"rho");
+        temperature = InterpolationMemo.interpolateTemperature(i3d,pos);
+        salinity    = InterpolationMemo.interpolateSalinity(i3d,pos);
+        if (FieldRequirements.isAvailable(i3d,"rho")) rho  = InterpolationMemo.interpolateRho(i3d,pos);
         else rho = 0.0;
     }
 
@@ -835,9 +987,13 @@ public class EggStage extends AbstractLHS {
     
     @Override
     public String getReport() {
+        boolean timing = StageTimer.isTimingEnabled();
+        long t0 = timing ? System.nanoTime() : 0L;
         updateAttributes();//make sure attributes are up to date
         atts.setValue(LifeStageAttributesInterface.PROP_track, getTrackAsString(COORDINATE_TYPE_GEOGRAPHIC));//
-        return atts.getCSV();
+        String csv = atts.getCSV();
+        if (timing) timer.lap(StageTimer.REPORT,t0);
+        return csv;
     }
 
     @Override
@@ -857,6 +1013,7 @@ public class EggStage extends AbstractLHS {
         atts.setValue(EggStageAttributes.PROP_rho,rho);
         atts.setValue(EggStageAttributes.PROP_salinity,salinity);
         atts.setValue(EggStageAttributes.PROP_temperature,temperature);
+        attsDirty = false;
     }
 
     /**
@@ -19,6 +19,18 @@ import wts.models.DisMELS.IBMFunctions.Mortality.ConstantMortalityRate;
 import wts.models.DisMELS.IBMFunctions.Mortality.TemperatureDependentMortalityRate_Houde1989;
 import wts.models.DisMELS.IBMs.ArrowtoothFlounder.EggStage.EggStageAttributes;
 import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Settler.SettlerStage;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.BatchInitializable;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.FieldRequirements;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.FieldRequirements.Layers;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.GridCellID;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.LifeStageEvent;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.LifeStageEvents;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.LineageStore;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.StageExits;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.StageTimer;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.TrajectoryRecord;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.TrajectoryRecorder;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.TrajectoryReplayable;
 import wts.models.DisMELS.framework.*;
 import wts.models.DisMELS.framework.IBMFunctions.IBMFunctionInterface;
 import wts.models.utilities.DateTimeFunctions;
@@ -29,7 +41,7 @@ import wts.roms.model.LagrangianParticle;
  * @author William Stockhausen
  */
 @ServiceProvider(service=LifeStageInterface.class)
-public class LarvaStage extends AbstractLHS {
+public class LarvaStage extends AbstractLHS implements BatchInitializable, TrajectoryReplayable {
     
         //Static fields    
             //  Static fields new to this class
@@ -93,6 +105,14 @@ public class LarvaStage extends AbstractLHS {
             //other fields
     /** number of individuals transitioning to next stage */
     private double numTrans;  
+    /** grid cell of the last position (re-uses gridCellID while in the same cell) */
+    private GridCellID gridCell = null;
+    /** flag indicating this stage has been added to the LineageStore */
+    private boolean isInLineage = false;
+    /** flag indicating the attributes need to be updated from the instance variables */
+    private boolean attsDirty = false;
+    /** flag indicating the start of this individual's path has been recorded */
+    private boolean isRecorded = false;
     /** total depth (m) at individual's position */
     private double totalDepth;
     
@@ -109,6 +129,13 @@ public class LarvaStage extends AbstractLHS {
     public static boolean debug = false;
     /** logger for class */
     private static final Logger logger = Logger.getLogger(LarvaStage.class.getName());
+    /** timer for the phases of the time step (see StageTimer) */
+    private static final StageTimer timer = StageTimer.getInstance("LarvaStage");
+    /** physical fields used by the stage (see FieldRequirements) */
+    public static final FieldRequirements FIELD_REQUIREMENTS = new FieldRequirements()
+            .add("h",Layers.HORIZONTAL).add("zeta",Layers.HORIZONTAL)
+            .add("u",Layers.ALL).add("v",Layers.ALL).add("w",Layers.ALL)
+            .add("temp",Layers.ALL).add("salt",Layers.ALL).freeze();
     
     /**
      * Creates a new instance of GenericLHS.  
@@ -212,6 +239,7 @@ public class LarvaStage extends AbstractLHS {
      */
     @Override
     public LarvaStageAttributes getAttributes() {
+        if (attsDirty) updateAttributes();
         return atts;
     }
 
@@ -449,13 +477,17 @@ public class LarvaStage extends AbstractLHS {
         if (((ageInStage+dtp)>=minStageDuration)&&(size>=minSize)) {
             if ((numTrans>0)||!isSuperIndividual){
                 nLHS = createNextLHS();
-                if (nLHS!=null) output.add(nLHS);
+                if (nLHS!=null) {
+                    output.add(nLHS);
+                    if (LifeStageEvents.isEnabled()) LifeStageEvents.fireTransition(this,time,lat,lon,depth,nLHS);
+                }
             }
         }
         return output;
     }
 
     private LifeStageInterface createNextLHS() {
+        if (attsDirty) updateAttributes();//new individuals are created from the attributes
         LifeStageInterface nLHS = null;
         try {
             //create LHS with "next" stage
@@ -574,8 +606,17 @@ public class LarvaStage extends AbstractLHS {
     
     @Override
     public void step(double dt) throws ArrayIndexOutOfBoundsException {
+        if (!isInLineage&&LineageStore.isRecording()) isInLineage = LineageStore.recordStageEntry(this,time,number);
+        if (!isRecorded&&TrajectoryRecorder.isRecording()){
+            updateAttributes();
+            TrajectoryRecorder.begin(this);
+            isRecorded = true;
+        }
+        boolean timing = StageTimer.isTimingEnabled();
+        long t0 = timing ? System.nanoTime() : 0L;
         double[] pos = lp.getIJK();
         double[] uvw = calcUVW(pos,dt);//this also sets "attached" and may change pos[2] to 0
+        if (timing) t0 = timer.lap(StageTimer.CALC_UVW,t0);
         if (attached){
             lp.setIJK(pos[0], pos[1], pos[2]);
         } else {
@@ -598,20 +639,56 @@ public class LarvaStage extends AbstractLHS {
             pos = lp.getIJK();
             if (debugOps) logger.info("Depth after corrector step = "+(-i3d.calcZfromK(pos[0],pos[1],pos[2])));
         }
+        if (timing) t0 = timer.lap(StageTimer.TRACKING,t0);
         time = time+dt;
         updateNum(dt);
         updateAge(dt);
+        if (timing) t0 = timer.lap(StageTimer.BIOLOGY,t0);
         updatePosition(pos);
+        if (timing) t0 = timer.lap(StageTimer.POSITION,t0);
         updateSize(dt);
+        if (timing) t0 = timer.lap(StageTimer.GROWTH,t0);
         interpolateEnvVars(pos);
-        //check for exiting grid
-        if (i3d.isAtGridEdge(pos,tolGridEdge)){
+        if (timing) t0 = timer.lap(StageTimer.ENVIRONMENT,t0);
+        //check for exiting grid or region of interest
+        attsDirty = true;//attributes are updated when next needed (see getAttributes())
+        StageExits.Exit exit = StageExits.check(this,i3d,tolGridEdge,pos,time,number,lat,lon,depth);
+        if (exit==StageExits.Exit.GRID) gridCellID = i3d.getGridCellID(pos,tolGridEdge);
+        boolean exitedGrid = (exit!=StageExits.Exit.NONE);//replays treat leaving the ROI like leaving the grid
+        if (isRecorded) TrajectoryRecorder.record(id,dt,pos,lat,lon,depth,totalDepth,
+                                                  temperature,salinity,Double.NaN,exitedGrid);//no density for larvae
+    }
+    
+    /**
+     * Advances the individual one time step along a recorded path. The 
+     * biology is updated as in step(dt), but the position and environmental 
+     * variables are taken from the record. Stage transitions are evaluated
+     * afterwards by the caller (via getMetamorphosedIndividuals(dt)), as in
+     * a model run.
+     * 
+     * @param rec - recorded physical state at the end of the time step
+     */
+    @Override
+    public void stepFromRecord(TrajectoryRecord rec) {
+        double dt = rec.dt;
+        time = time+dt;
+        updateNum(dt);
+        updateAge(dt);
+        totalDepth = rec.totalDepth;
+        depth      = rec.depth;
+        lat        = rec.lat;
+        lon        = rec.lon;
+        gridCell   = GridCellID.update(gridCell,gridCellID,rec.pos);
+        gridCellID = gridCell.getID();
+        lp.setIJK(rec.pos[0],rec.pos[1],rec.pos[2]);//a next stage starts from the recorded position
+        updateSize(dt);
+        temperature = rec.temperature;
+        salinity    = rec.salinity;
+        if (rec.exitedGrid){
             alive=false;
             active=false;
-            gridCellID=i3d.getGridCellID(pos, tolGridEdge);
-            logger.info("Indiv "+id+" exited grid at ["+pos[0]+","+pos[1]+"]: "+gridCellID);
         }
-        updateAttributes(); //update the attributes object w/ nmodified values
+        attsDirty = true;
     }
     
     /**
@@ -697,6 +774,7 @@ public class LarvaStage extends AbstractLHS {
         age        = age+dt/DAY_SECS;
         ageInStage = ageInStage+dt/DAY_SECS;
         if (ageInStage>maxStageDuration) {
+            if (active&&LifeStageEvents.isEnabled()) LifeStageEvents.fire(LifeStageEvent.Type.MAX_STAGE_DURATION,this,time,number,lat,lon,depth);
             alive = false;
             active = false;
         }
@@ -763,7 +841,8 @@ public class LarvaStage extends AbstractLHS {
         depth      = -i3d.calcZfromK(pos[0],pos[1],pos[2]);
         lat        = i3d.interpolateLat(pos);
         lon        = i3d.interpolateLon(pos);
-        gridCellID = ""+Math.round(pos[0])+"_"+Math.round(pos[1]);
+        gridCell   = GridCellID.update(gridCell,gridCellID,pos);
+        gridCellID = gridCell.getID();
         updateTrack();
     }
     
@@ -845,9 +924,13 @@ public class LarvaStage extends AbstractLHS {
     
     @Override
     public String getReport() {
+        boolean timing = StageTimer.isTimingEnabled();
+        long t0 = timing ? System.nanoTime() : 0L;
         updateAttributes();//make sure attributes are up to date
         atts.setValue(LifeStageAttributesInterface.PROP_track, getTrackAsString(COORDINATE_TYPE_GEOGRAPHIC));//
-        return atts.getCSV();
+        String csv = atts.getCSV();
+        if (timing) timer.lap(StageTimer.REPORT,t0);
+        return csv;
     }
 
     @Override
@@ -865,6 +948,7 @@ public class LarvaStage extends AbstractLHS {
         atts.setValue(LarvaStageAttributes.PROP_weight,weight);
         atts.setValue(LarvaStageAttributes.PROP_salinity,salinity);
         atts.setValue(LarvaStageAttributes.PROP_temperature,temperature);
+        attsDirty = false;
     }
 
     /**
@@ -18,6 +18,15 @@ import wts.models.DisMELS.IBMFunctions.Miscellaneous.ConstantFunction;
 import wts.models.DisMELS.IBMFunctions.Mortality.ConstantMortalityRate;
 import wts.models.DisMELS.IBMFunctions.Mortality.TemperatureDependentMortalityRate_Houde1989;
 import wts.models.DisMELS.IBMs.ArrowtoothFlounder.BenthicJuvenile.BenthicJuvenileStage;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.BatchInitializable;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.FieldRequirements;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.FieldRequirements.Layers;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.GridCellID;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.LifeStageEvent;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.LifeStageEvents;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.LineageStore;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.StageExits;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities.StageTimer;
 import wts.models.DisMELS.framework.*;
 import wts.models.DisMELS.framework.IBMFunctions.IBMFunctionInterface;
 import wts.models.utilities.DateTimeFunctions;
@@ -28,7 +37,7 @@ import wts.roms.model.LagrangianParticle;
  * @author William Stockhausen
  */
 @ServiceProvider(service=LifeStageInterface.class)
-public class SettlerStage extends AbstractLHS {
+public class SettlerStage extends AbstractLHS implements BatchInitializable {
     
         //Static fields    
             //  Static fields new to this class
@@ -96,6 +105,12 @@ public class SettlerStage extends AbstractLHS {
             //other fields
     /** number of individuals transitioning to next stage */
     private double numTrans;  
+    /** grid cell of the last position (re-uses gridCellID while in the same cell) */
+    private GridCellID gridCell = null;
+    /** flag indicating this stage has been added to the LineageStore */
+    private boolean isInLineage = false;
+    /** flag indicating the attributes need to be updated from the instance variables */
+    private boolean attsDirty = false;
     /** total depth (m) at individual's position */
     private double totalDepth;
     
@@ -110,6 +125,13 @@ public class SettlerStage extends AbstractLHS {
     
     /** logger for class */
     private static final Logger logger = Logger.getLogger(SettlerStage.class.getName());
+    /** timer for the phases of the time step (see StageTimer) */
+    private static final StageTimer timer = StageTimer.getInstance("SettlerStage");
+    /** physical fields used by the stage (see FieldRequirements) */
+    public static final FieldRequirements FIELD_REQUIREMENTS = new FieldRequirements()
+            .add("h",Layers.HORIZONTAL).add("zeta",Layers.HORIZONTAL)
+            .add("u",Layers.ALL).add("v",Layers.ALL).add("w",Layers.ALL)
+            .add("temp",Layers.ALL).add("salt",Layers.ALL).freeze();
     
     /**
      * Creates a new instance of GenericLHS.  
@@ -213,6 +235,7 @@ public class SettlerStage extends AbstractLHS {
      */
     @Override
     public SettlerStageAttributes getAttributes() {
+        if (attsDirty) updateAttributes();
         return atts;
     }
 
@@ -448,12 +471,16 @@ public class SettlerStage extends AbstractLHS {
         if ((minSettlementDepth<=totalDepth)&&(totalDepth<=maxSettlementDepth)&&
                 (depth>(totalDepth-5))) {
             nLHS = createNextLHS();
-            if (nLHS!=null) output.add(nLHS);
+            if (nLHS!=null) {
+                output.add(nLHS);
+                if (LifeStageEvents.isEnabled()) LifeStageEvents.fireTransition(this,time,lat,lon,depth,nLHS);
+            }
         }
         return output;
     }
 
     private LifeStageInterface createNextLHS() {
+        if (attsDirty) updateAttributes();//new individuals are created from the attributes
         LifeStageInterface nLHS = null;
         try {
             //create LHS with "next" stage
@@ -572,8 +599,12 @@ public class SettlerStage extends AbstractLHS {
     
     @Override
     public void step(double dt) throws ArrayIndexOutOfBoundsException {
+        if (!isInLineage&&LineageStore.isRecording()) isInLineage = LineageStore.recordStageEntry(this,time,number);
+        boolean timing = StageTimer.isTimingEnabled();
+        long t0 = timing ? System.nanoTime() : 0L;
         double[] pos = lp.getIJK();
         double[] uvw = calcUVW(pos,dt);//this also sets "attached" and may change pos[2] to 0
+        if (timing) t0 = timer.lap(StageTimer.CALC_UVW,t0);
         if (attached){
             lp.setIJK(pos[0], pos[1], pos[2]);
         } else {
@@ -596,20 +627,21 @@ public class SettlerStage extends AbstractLHS {
             pos = lp.getIJK();
             if (debugOps) logger.info("Depth after corrector step = "+(-i3d.calcZfromK(pos[0],pos[1],pos[2])));
         }
+        if (timing) t0 = timer.lap(StageTimer.TRACKING,t0);
         time = time+dt;
         updateNum(dt);
         updateAge(dt);
+        if (timing) t0 = timer.lap(StageTimer.BIOLOGY,t0);
         updatePosition(pos);
+        if (timing) t0 = timer.lap(StageTimer.POSITION,t0);
         updateSize(dt);
+        if (timing) t0 = timer.lap(StageTimer.GROWTH,t0);
         interpolateEnvVars(pos);
-        //check for exiting grid
-        if (i3d.isAtGridEdge(pos,tolGridEdge)){
-            alive=false;
-            active=false;
-            gridCellID=i3d.getGridCellID(pos, tolGridEdge);
-            logger.info("Indiv "+id+" exited grid at ["+pos[0]+","+pos[1]+"]: "+gridCellID);
-        }
-        updateAttributes(); //update the attributes object w/ nmodified values
+        if (timing) t0 = timer.lap(StageTimer.ENVIRONMENT,t0);
+        //check for exiting grid or region of interest
+        attsDirty = true;//attributes are updated when next needed (see getAttributes())
+        StageExits.Exit exit = StageExits.check(this,i3d,tolGridEdge,pos,time,number,lat,lon,depth);
+        if (exit==StageExits.Exit.GRID) gridCellID = i3d.getGridCellID(pos,tolGridEdge);
     }
     
     /**
@@ -700,6 +732,7 @@ public class SettlerStage extends AbstractLHS {
         age        = age+dt/DAY_SECS;
         ageInStage = ageInStage+dt/DAY_SECS;
         if (ageInStage>maxStageDuration) {
+            if (active&&LifeStageEvents.isEnabled()) LifeStageEvents.fire(LifeStageEvent.Type.MAX_STAGE_DURATION,this,time,number,lat,lon,depth);
             alive = false;
             active = false;
         }
@@ -766,7 +799,8 @@ public class SettlerStage extends AbstractLHS {
         depth      = -i3d.calcZfromK(pos[0],pos[1],pos[2]);
         lat        = i3d.interpolateLat(pos);
         lon        = i3d.interpolateLon(pos);
-        gridCellID = ""+Math.round(pos[0])+"_"+Math.round(pos[1]);
+        gridCell   = GridCellID.update(gridCell,gridCellID,pos);
+        gridCellID = gridCell.getID();
         updateTrack();
     }
     
@@ -848,9 +882,13 @@ public class SettlerStage extends AbstractLHS {
     
     @Override
     public String getReport() {
+        boolean timing = StageTimer.isTimingEnabled();
+        long t0 = timing ? System.nanoTime() : 0L;
         updateAttributes();//make sure attributes are up to date
         atts.setValue(LifeStageAttributesInterface.PROP_track, getTrackAsString(COORDINATE_TYPE_GEOGRAPHIC));//
-        return atts.getCSV();
+        String csv = atts.getCSV();
+        if (timing) timer.lap(StageTimer.REPORT,t0);
+        return csv;
     }
 
     @Override
@@ -868,6 +906,7 @@ public class SettlerStage extends AbstractLHS {
         atts.setValue(SettlerStageAttributes.PROP_weight,weight);
         atts.setValue(SettlerStageAttributes.PROP_salinity,salinity);
         atts.setValue(SettlerStageAttributes.PROP_temperature,temperature);
+        attsDirty = false;
     }
 
     /**
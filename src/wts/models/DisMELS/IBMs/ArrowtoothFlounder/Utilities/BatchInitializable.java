@@ -0,0 +1,28 @@
+/*
+ * BatchInitializable.java
+ *
+ * Created on October 19, 2026.
+ *
+ */
+
+package wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities;
+
+/**
+ * Interface for life stages that can be placed on the grid by 
+ * BatchInitializer.
+ * 
+ * @author agent
+ */
+public interface BatchInitializable {
+    
+    /**
+     * Sets the initial position on the grid and the environmental variables
+     * from the attribute values. If BatchInitializer is set to use more than
+     * one thread, instances are initialized concurrently, so the method must
+     * only modify the instance itself (stages that use the shared calendar or
+     * random number generator while initializing, such as AdultStage, must
+     * not implement this interface), and the interpolator must be safe for
+     * concurrent reads.
+     */
+    public void initialize();
+}
@@ -0,0 +1,103 @@
+/*
+ * BatchInitializer.java
+ *
+ * Created on October 19, 2026.
+ *
+ */
+
+package wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+import wts.models.DisMELS.framework.LifeStageInterface;
+
+/**
+ * Initializes (places on the grid) a list of individuals at once, instead of
+ * one at a time as they are created.
+ *
+ * The stages' initialize() methods use the interpolator (computeIJfromLL,
+ * interpolateBathymetricDepth, interpolateSSH, calcKfromZ, ...) and the
+ * stages' static debug flags, which are not known to be thread-safe. By
+ * default the batch is therefore initialized on the calling thread. The
+ * batch is split into chunks on worker threads only if the number of
+ * threads is set above 1 (by the system property PROP_threads or the
+ * nThreads argument), which should only be done with an interpolator that
+ * has been checked to be safe for concurrent reads.
+ *
+ * @author agent
+ */
+public class BatchInitializer {
+
+    /** system property giving the default number of worker threads (default 1, i.e. the calling thread) */
+    public static final String PROP_threads =
+            "wts.models.DisMELS.IBMs.ArrowtoothFlounder.batchInitializerThreads";
+
+    /** individuals per worker task */
+    private static final int CHUNK_SIZE = 1024;
+
+    private static final Logger logger = Logger.getLogger(BatchInitializer.class.getName());
+
+    private BatchInitializer(){}
+
+    /**
+     * Initializes the individuals using the number of threads given by
+     * PROP_threads (by default, on the calling thread).
+     *
+     * @param lhss - individuals implementing BatchInitializable
+     */
+    public static void initialize(List<? extends LifeStageInterface> lhss) {
+        initialize(lhss,Integer.getInteger(PROP_threads,1));
+    }
+
+    /**
+     * Initializes the individuals.
+     *
+     * @param lhss     - individuals implementing BatchInitializable
+     * @param nThreads - number of worker threads (1 to use the calling thread;
+     *                   more only if the interpolator is safe for concurrent reads)
+     */
+    public static void initialize(final List<? extends LifeStageInterface> lhss, int nThreads) {
+        for (LifeStageInterface lhs: lhss) {
+            if (!(lhs instanceof BatchInitializable)) {
+                throw new IllegalArgumentException(lhs.getClass().getName()+" does not implement BatchInitializable");
+            }
+        }
+        long t0 = System.nanoTime();
+        if (nThreads<=1) {
+            for (LifeStageInterface lhs: lhss) ((BatchInitializable) lhs).initialize();
+            logger.info("Initialized "+lhss.size()+" individuals in "+
+                        ((System.nanoTime()-t0)/1000000)+" ms");
+            return;
+        }
+        ExecutorService exec = Executors.newFixedThreadPool(nThreads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i0=0;i0<lhss.size();i0+=CHUNK_SIZE) {
+                final int from = i0, to = Math.min(lhss.size(),i0+CHUNK_SIZE);
+                futures.add(exec.submit(new Callable<Void>(){
+                    @Override
+                    public Void call() {
+                        for (int i=from;i<to;i++) ((BatchInitializable) lhss.get(i)).initialize();
+                        return null;
+                    }
+                }));
+            }
+            for (Future<?> f: futures) f.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while initializing individuals",ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Error initializing individuals",ex.getCause());
+        } finally {
+            exec.shutdownNow();
+        }
+        logger.info("Initialized "+lhss.size()+" individuals in "+
+                    ((System.nanoTime()-t0)/1000000)+" ms");
+    }
+}
@@ -0,0 +1,333 @@
+/*
+ * ColumnarAttributesWriter.java
+ *
+ * Created on October 19, 2026.
+ *
+ */
+
+package wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import wts.models.DisMELS.framework.LifeStageAttributesInterface;
+import wts.models.DisMELS.framework.LifeStageInterface;
+
+/**
+ * Writes life stage attributes to a columnar binary file, as a smaller and
+ * faster alternative to the CSV output from getCSV().
+ *
+ * The columns are defined by the attributes' getShortNames() and getClasses()
+ * (typeName is written once in the file header rather than as a column).
+ * Rows are buffered and written in blocks; each block holds one contiguous
+ * section per column, with the column's min and max values for numeric
+ * columns, so readers can map the file and skip blocks or columns.
+ *
+ * File layout (big-endian):
+ * <pre>
+ *  header:  MAGIC (int), VERSION (int), typeName (String), number of columns (int),
+ *           then for each column: short name (String), type (byte)
+ *  blocks:  number of rows (int), offset of each column section from the
+ *           start of the block (long[number of columns]), then the column sections:
+ *             TYPE_DOUBLE  - min, max (double), values (double[rows])
+ *             TYPE_LONG    - min, max (long), values (long[rows])
+ *             TYPE_INT     - min, max (int), values (int[rows])
+ *             TYPE_BOOLEAN - number true (int), values (byte[rows], 0 or 1)
+ *             TYPE_STRING  - end offset of each value in the bytes (int[rows]),
+ *                            UTF-8 bytes of the values
+ *  index:   number of blocks (int), file offset of each block (long[]),
+ *           number of rows in each block (int[])
+ *  trailer: file offset of the index (long), MAGIC (int)
+ * </pre>
+ * Strings in the header are written as an int byte count followed by UTF-8 bytes.
+ * Missing numeric values are written as NaN (doubles) or 0.
+ *
+ * @author agent
+ */
+public class ColumnarAttributesWriter implements AutoCloseable {
+
+    /** file identifier */
+    public static final int MAGIC = 0x41544643;
+    /** file format version */
+    public static final int VERSION = 1;
+    /** column type for Double and Float attributes */
+    public static final byte TYPE_DOUBLE  = 'D';
+    /** column type for Long attributes */
+    public static final byte TYPE_LONG    = 'J';
+    /** column type for Integer and Short attributes */
+    public static final byte TYPE_INT     = 'I';
+    /** column type for Boolean attributes */
+    public static final byte TYPE_BOOLEAN = 'Z';
+    /** column type for all other attributes (written as Strings) */
+    public static final byte TYPE_STRING  = 'T';
+    /** default number of rows per block */
+    public static final int DEFAULT_ROWS_PER_BLOCK = 8192;
+
+    static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /** file channel being written */
+    private final FileChannel channel;
+    /** attribute class the file was created for */
+    private final Class<?> attsClass;
+    /** attribute keys, in column order */
+    private final String[] keys;
+    /** column types */
+    private final byte[] types;
+    /** rows per block */
+    private final int rowsPerBlock;
+    /** buffered column values */
+    private final Object[] buffers;
+    /** number of buffered rows */
+    private int nRows = 0;
+    /** file offsets of the blocks written */
+    private final List<Long> blockOffsets = new ArrayList<>();
+    /** number of rows in each block written */
+    private final List<Integer> blockRows = new ArrayList<>();
+
+    /**
+     * Creates a writer using DEFAULT_ROWS_PER_BLOCK.
+     *
+     * @param file   - output file
+     * @param schema - attributes instance defining the columns
+     * @throws IOException
+     */
+    public ColumnarAttributesWriter(File file, LifeStageAttributesInterface schema) throws IOException {
+        this(file,schema,DEFAULT_ROWS_PER_BLOCK);
+    }
+
+    /**
+     * Creates a writer.
+     *
+     * @param file         - output file
+     * @param schema       - attributes instance defining the columns
+     * @param rowsPerBlock - number of rows per block
+     * @throws IOException
+     */
+    public ColumnarAttributesWriter(File file, LifeStageAttributesInterface schema,
+                                    int rowsPerBlock) throws IOException {
+        this.rowsPerBlock = Math.max(1,rowsPerBlock);
+        attsClass = schema.getClass();
+        keys = schema.getKeys().clone();
+        Class[] classes = schema.getClasses();
+        String[] names  = schema.getShortNames();
+        //classes and short names include typeName as the first element; keys do not
+        types   = new byte[keys.length];
+        buffers = new Object[keys.length];
+        for (int c=0;c<keys.length;c++) {
+            types[c] = getType(classes[c+1]);
+            switch (types[c]) {
+                case TYPE_DOUBLE:  buffers[c] = new double[this.rowsPerBlock]; break;
+                case TYPE_LONG:    buffers[c] = new long[this.rowsPerBlock]; break;
+                case TYPE_INT:     buffers[c] = new int[this.rowsPerBlock]; break;
+                case TYPE_BOOLEAN: buffers[c] = new boolean[this.rowsPerBlock]; break;
+                default:           buffers[c] = new String[this.rowsPerBlock];
+            }
+        }
+        RandomAccessFile raf = new RandomAccessFile(file,"rw");
+        raf.setLength(0);
+        channel = raf.getChannel();
+        int size = 16+stringSize(schema.getTypeName());
+        for (int c=0;c<keys.length;c++) size += stringSize(names[c+1])+1;
+        ByteBuffer bb = ByteBuffer.allocate(size);
+        bb.putInt(MAGIC);
+        bb.putInt(VERSION);
+        putString(bb,schema.getTypeName());
+        bb.putInt(keys.length);
+        for (int c=0;c<keys.length;c++) {
+            putString(bb,names[c+1]);
+            bb.put(types[c]);
+        }
+        write(bb);
+    }
+
+    /**
+     * Appends the current attribute values of an individual. Attributes are
+     * updated by the stage at the end of each time step; the track attribute
+     * is only updated by getReport().
+     *
+     * @param lhs - the individual
+     * @throws IOException
+     */
+    public void append(LifeStageInterface lhs) throws IOException {
+        append(lhs.getAttributes());
+    }
+
+    /**
+     * Appends a row of attribute values.
+     *
+     * @param atts - attributes of the same class as the schema
+     * @throws IOException
+     */
+    public void append(LifeStageAttributesInterface atts) throws IOException {
+        if (atts.getClass()!=attsClass) {
+            throw new IllegalArgumentException("Expected "+attsClass.getName()+
+                                               " but got "+atts.getClass().getName());
+        }
+        for (int c=0;c<keys.length;c++) {
+            Object v = atts.getValue(keys[c]);
+            switch (types[c]) {
+                case TYPE_DOUBLE:
+                    ((double[]) buffers[c])[nRows] = (v!=null) ? ((Number) v).doubleValue() : Double.NaN;
+                    break;
+                case TYPE_LONG:
+                    ((long[]) buffers[c])[nRows] = (v!=null) ? ((Number) v).longValue() : 0L;
+                    break;
+                case TYPE_INT:
+                    ((int[]) buffers[c])[nRows] = (v!=null) ? ((Number) v).intValue() : 0;
+                    break;
+                case TYPE_BOOLEAN:
+                    ((boolean[]) buffers[c])[nRows] = (v!=null)&&((Boolean) v);
+                    break;
+                default:
+                    ((String[]) buffers[c])[nRows] = (v!=null) ? v.toString() : "";
+            }
+        }
+        if (++nRows==rowsPerBlock) writeBlock();
+    }
+
+    /**
+     * Writes any buffered rows, the block index and the trailer, and closes
+     * the file.
+     *
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        if (!channel.isOpen()) return;
+        try {
+            if (nRows>0) writeBlock();
+            long indexOffset = channel.position();
+            int nB = blockOffsets.size();
+            ByteBuffer bb = ByteBuffer.allocate(4+12*nB+12);
+            bb.putInt(nB);
+            for (Long o: blockOffsets) bb.putLong(o);
+            for (Integer n: blockRows) bb.putInt(n);
+            bb.putLong(indexOffset);
+            bb.putInt(MAGIC);
+            write(bb);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        int nC = keys.length;
+        byte[][][] strBytes = new byte[nC][][];
+        long[] offsets = new long[nC];
+        long size = 4+8*nC;
+        for (int c=0;c<nC;c++) {
+            offsets[c] = size;
+            switch (types[c]) {
+                case TYPE_DOUBLE:
+                case TYPE_LONG:    size += 16+8L*nRows; break;
+                case TYPE_INT:     size += 8+4L*nRows; break;
+                case TYPE_BOOLEAN: size += 4+nRows; break;
+                default:
+                    String[] sv = (String[]) buffers[c];
+                    strBytes[c] = new byte[nRows][];
+                    size += 4L*nRows;
+                    for (int r=0;r<nRows;r++) {
+                        strBytes[c][r] = sv[r].getBytes(UTF8);
+                        size += strBytes[c][r].length;
+                    }
+            }
+        }
+        ByteBuffer bb = ByteBuffer.allocate((int) size);
+        bb.putInt(nRows);
+        for (int c=0;c<nC;c++) bb.putLong(offsets[c]);
+        for (int c=0;c<nC;c++) {
+            switch (types[c]) {
+                case TYPE_DOUBLE: {
+                    double[] v = (double[]) buffers[c];
+                    double min = Double.NaN, max = Double.NaN;
+                    for (int r=0;r<nRows;r++) {
+                        if (Double.isNaN(v[r])) continue;
+                        if (!(v[r]>=min)) min = v[r];
+                        if (!(v[r]<=max)) max = v[r];
+                    }
+                    bb.putDouble(min).putDouble(max);
+                    for (int r=0;r<nRows;r++) bb.putDouble(v[r]);
+                    break;
+                }
+                case TYPE_LONG: {
+                    long[] v = (long[]) buffers[c];
+                    long min = Long.MAX_VALUE, max = Long.MIN_VALUE;
+                    for (int r=0;r<nRows;r++) {
+                        min = Math.min(min,v[r]);
+                        max = Math.max(max,v[r]);
+                    }
+                    bb.putLong(min).putLong(max);
+                    for (int r=0;r<nRows;r++) bb.putLong(v[r]);
+                    break;
+                }
+                case TYPE_INT: {
+                    int[] v = (int[]) buffers[c];
+                    int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+                    for (int r=0;r<nRows;r++) {
+                        min = Math.min(min,v[r]);
+                        max = Math.max(max,v[r]);
+                    }
+                    bb.putInt(min).putInt(max);
+                    for (int r=0;r<nRows;r++) bb.putInt(v[r]);
+                    break;
+                }
+                case TYPE_BOOLEAN: {
+                    boolean[] v = (boolean[]) buffers[c];
+                    int nTrue = 0;
+                    for (int r=0;r<nRows;r++) if (v[r]) nTrue++;
+                    bb.putInt(nTrue);
+                    for (int r=0;r<nRows;r++) bb.put(v[r] ? (byte) 1 : (byte) 0);
+                    break;
+                }
+                default: {
+                    int end = 0;
+                    for (int r=0;r<nRows;r++) {
+                        end += strBytes[c][r].length;
+                        bb.putInt(end);
+                    }
+                    for (int r=0;r<nRows;r++) bb.put(strBytes[c][r]);
+                    String[] sv = (String[]) buffers[c];
+                    for (int r=0;r<nRows;r++) sv[r] = null;
+                }
+            }
+        }
+        blockOffsets.add(channel.position());
+        blockRows.add(nRows);
+        write(bb);
+        nRows = 0;
+    }
+
+    private void write(ByteBuffer bb) throws IOException {
+        bb.flip();
+        while (bb.hasRemaining()) channel.write(bb);
+    }
+
+    /**
+     * Gets the column type for an attribute class.
+     *
+     * @param cls - attribute value class
+     * @return - column type
+     */
+    static byte getType(Class<?> cls) {
+        if ((cls==Double.class)||(cls==Float.class)) return TYPE_DOUBLE;
+        if (cls==Long.class) return TYPE_LONG;
+        if ((cls==Integer.class)||(cls==Short.class)) return TYPE_INT;
+        if (cls==Boolean.class) return TYPE_BOOLEAN;
+        return TYPE_STRING;
+    }
+
+    private static int stringSize(String str) {
+        return 4+str.getBytes(UTF8).length;
+    }
+
+    private static void putString(ByteBuffer bb, String str) {
+        byte[] b = str.getBytes(UTF8);
+        bb.putInt(b.length);
+        bb.put(b);
+    }
+}
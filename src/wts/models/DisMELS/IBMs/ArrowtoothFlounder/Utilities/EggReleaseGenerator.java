@@ -0,0 +1,493 @@
+/*
+ * EggReleaseGenerator.java
+ *
+ * Created on October 19, 2026.
+ *
+ */
+
+package wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+import wts.models.DisMELS.IBMs.ArrowtoothFlounder.EggStage.EggStage;
+import wts.models.DisMELS.framework.*;
+
+/**
+ * Generates initial egg super-individuals for a spawning scenario defined by
+ * a spawning-density raster, a depth distribution and a release-date
+ * distribution, without going through an initial attributes file.
+ *
+ * Release cells are drawn with probability proportional to the raster
+ * density using systematic sampling, so each cell receives a number of
+ * super-individuals within one of its expected share. Cells whose center is
+ * on land or at the grid edge (see EggStage.isInModelDomain(...)) are not
+ * used. Positions are uniform within the cell, redrawn if they fall on land
+ * or at the grid edge (falling back to the cell center after MAX_TRIES
+ * draws); depth and release time are drawn independently from their
+ * distributions. Every super-individual represents totalEggs/N eggs, so the
+ * total number released matches totalEggs exactly (by default, the sum of
+ * the raster values).
+ *
+ * Release times, depths and first candidate points are drawn on worker
+ * threads. The domain checks use the interpolator, which is not known to be
+ * thread-safe, so they are done on the calling thread, which also redraws
+ * rejected points (from a generator seeded by the sample index). The first
+ * egg is then created and initialized on the calling thread, the others are
+ * created from it as siblings in sample order (so ids are assigned
+ * deterministically), and they are placed on the grid by BatchInitializer.
+ * Results are reproducible for a given seed, regardless of the number of
+ * threads.
+ *
+ * @author agent
+ */
+public class EggReleaseGenerator {
+
+    /** samples per worker task */
+    private static final int CHUNK_SIZE = 4096;
+    /** maximum number of draws for a release point within a cell */
+    private static final int MAX_TRIES = 10;
+
+    private static final Logger logger = Logger.getLogger(EggReleaseGenerator.class.getName());
+
+    /** spawning-density raster */
+    private final DensityRaster raster;
+    /** depth distribution (m, positive down) */
+    private final Distribution depths;
+    /** release-time distribution (model time, s) */
+    private final Distribution times;
+    /** total number of eggs to release */
+    private double totalEggs;
+    /** seed for the random number generators */
+    private long seed = 0L;
+    /** number of worker threads */
+    private int nThreads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Creates a generator releasing the total number of eggs given by the
+     * sum of the raster values.
+     *
+     * @param raster - spawning-density raster (eggs per cell)
+     * @param depths - depth distribution (m, positive down)
+     * @param times  - release-time distribution (model time, s)
+     */
+    public EggReleaseGenerator(DensityRaster raster, Distribution depths, Distribution times) {
+        this.raster = raster;
+        this.depths = depths;
+        this.times  = times;
+        totalEggs   = raster.getTotal();
+    }
+
+    /**
+     * Sets the total number of eggs to release (the raster is then used only
+     * as relative density).
+     *
+     * @param totalEggs
+     */
+    public void setTotalEggs(double totalEggs) {
+        this.totalEggs = totalEggs;
+    }
+
+    /**
+     * Gets the total number of eggs to release.
+     *
+     * @return
+     */
+    public double getTotalEggs() {
+        return totalEggs;
+    }
+
+    /**
+     * Sets the seed for the random number generators.
+     *
+     * @param seed
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Sets the number of worker threads used to draw release times, depths
+     * and points (BatchInitializer uses its own setting).
+     *
+     * @param n
+     */
+    public void setNumberOfThreads(int n) {
+        nThreads = Math.max(1,n);
+    }
+
+    /**
+     * Generates and initializes the egg super-individuals.
+     *
+     * @param typeName - type name for the eggs
+     * @param n        - number of super-individuals
+     * @return - the eggs, in sample order
+     * @throws InstantiationException
+     * @throws IllegalAccessException
+     * @throws IOException - if a worker fails
+     */
+    public List<EggStage> generate(String typeName, int n)
+                        throws InstantiationException, IllegalAccessException, IOException {
+        if (n<=0) return new ArrayList<>();
+        //only use cells with their center in the model domain
+        final int[] cellIndex = raster.cellIndex;
+        double[] cum = new double[cellIndex.length];
+        double sum = 0.0, prev = 0.0;
+        int nExcluded = 0;
+        for (int k=0;k<cellIndex.length;k++) {
+            double w = raster.cumulative[k]-prev;
+            prev = raster.cumulative[k];
+            if (EggStage.isInModelDomain(raster.getX(cellIndex[k],0.5),raster.getY(cellIndex[k],0.5))) {
+                sum += w;
+            } else {
+                nExcluded++;
+            }
+            cum[k] = sum;
+        }
+        if (nExcluded>0) {
+            logger.warning(nExcluded+" of "+cellIndex.length+" raster cells are on land or at the grid edge and are not used ("+
+                           ((raster.getTotal()-sum)/raster.getTotal())+" of the density)");
+        }
+        if (!(sum>0)) throw new IllegalStateException("Density raster has no positive cells in the model domain");
+        final double number = totalEggs/n;
+        //systematic sample of cells: one random offset, n equally spaced points on the cumulative density
+        final int[] cells = new int[n];
+        double step = sum/n;
+        double u = new Random(seed).nextDouble()*step;
+        int c = 0;
+        for (int s=0;s<n;s++) {
+            double target = u+s*step;
+            while ((c<cum.length-1)&&(cum[c]<=target)) c++;
+            cells[s] = cellIndex[c];
+        }
+        //draw release times, depths and candidate points on worker threads
+        final double[] lons = new double[n], lats = new double[n], zs = new double[n], ts = new double[n];
+        ExecutorService exec = Executors.newFixedThreadPool(nThreads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int s0=0;s0<n;s0+=CHUNK_SIZE) {
+                final int from = s0, to = Math.min(n,s0+CHUNK_SIZE);
+                futures.add(exec.submit(new Callable<Void>(){
+                    @Override
+                    public Void call() {
+                        Random rng = new Random(seed+31L*(from/CHUNK_SIZE+1));
+                        for (int s=from;s<to;s++) {
+                            ts[s] = times.sample(rng);
+                            zs[s] = depths.sample(rng);
+                            lons[s] = raster.getX(cells[s],rng.nextDouble());
+                            lats[s] = raster.getY(cells[s],rng.nextDouble());
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<?> f: futures) f.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while generating eggs",ex);
+        } catch (ExecutionException ex) {
+            throw new IOException("Error generating eggs",ex.getCause());
+        } finally {
+            exec.shutdownNow();
+        }
+        //check the candidate points on this thread
+        for (int s=0;s<n;s++) {
+            if (!EggStage.isInModelDomain(lons[s],lats[s])) redrawPoint(cells[s],s,lons,lats);
+        }
+        //create and initialize the first egg, then create the others from it in sample order
+        final List<EggStage> eggs = new ArrayList<>(n);
+        EggStage first = new EggStage(typeName);
+        setAttributes(first,number,lons[0],lats[0],zs[0],ts[0]);
+        first.initialize();
+        eggs.add(first);
+        for (int s=1;s<n;s++) {
+            EggStage egg = first.createSibling();
+            setAttributes(egg,number,lons[s],lats[s],zs[s],ts[s]);
+            eggs.add(egg);
+        }
+        //place on the grid
+        if (n>1) BatchInitializer.initialize(eggs.subList(1,n));
+        logger.info("Generated "+n+" egg super-individuals ("+number+" eggs each, "+totalEggs+" total)");
+        return eggs;
+    }
+
+    /**
+     * Redraws a release point that is not in the model domain, falling back
+     * to the cell center.
+     */
+    private void redrawPoint(int cell, int s, double[] lons, double[] lats) {
+        Random rng = new Random(seed^(0x9E3779B97F4A7C15L*(s+1)));
+        for (int i=1;i<MAX_TRIES;i++) {
+            double x = raster.getX(cell,rng.nextDouble());
+            double y = raster.getY(cell,rng.nextDouble());
+            if (EggStage.isInModelDomain(x,y)) {
+                lons[s] = x;
+                lats[s] = y;
+                return;
+            }
+        }
+        lons[s] = raster.getX(cell,0.5);
+        lats[s] = raster.getY(cell,0.5);
+    }
+
+    private static void setAttributes(EggStage egg, double number, double lon, double lat, double z, double t) {
+        LifeStageAttributesInterface atts = egg.getAttributes();
+        long id = egg.getID();
+        atts.setValue(LifeStageAttributesInterface.PROP_id,id);
+        atts.setValue(LifeStageAttributesInterface.PROP_parentID,id);
+        atts.setValue(LifeStageAttributesInterface.PROP_origID,id);
+        atts.setValue(LifeStageAttributesInterface.PROP_startTime,t);
+        atts.setValue(LifeStageAttributesInterface.PROP_time,t);
+        atts.setValue(LifeStageAttributesInterface.PROP_horizType,Types.HORIZ_LL);
+        atts.setValue(LifeStageAttributesInterface.PROP_vertType,Types.VERT_H);
+        atts.setValue(LifeStageAttributesInterface.PROP_horizPos1,lon);
+        atts.setValue(LifeStageAttributesInterface.PROP_horizPos2,lat);
+        atts.setValue(LifeStageAttributesInterface.PROP_vertPos,z);
+        atts.setValue(LifeStageAttributesInterface.PROP_number,number);
+        egg.setStartTime(t);
+    }
+
+    /**
+     * Spawning density on a regular lon/lat raster. Cells with missing or
+     * non-positive values are never sampled.
+     */
+    public static class DensityRaster {
+        /** number of columns (lon) and rows (lat) */
+        private final int nCols, nRows;
+        /** lon, lat of the lower left corner */
+        private final double xll, yll;
+        /** cell size (degrees) */
+        private final double cellSize;
+        /** indices (row*nCols+col, rows from the south) of the positive cells */
+        private final int[] cellIndex;
+        /** cumulative density over the positive cells */
+        private final double[] cumulative;
+
+        /**
+         * Creates a raster.
+         *
+         * @param nCols    - number of columns
+         * @param nRows    - number of rows
+         * @param xll      - longitude of the lower left corner
+         * @param yll      - latitude of the lower left corner
+         * @param cellSize - cell size (degrees)
+         * @param values   - densities, by row from the south (index row*nCols+col)
+         */
+        public DensityRaster(int nCols, int nRows, double xll, double yll, double cellSize, double[] values) {
+            if (values.length!=nCols*nRows) {
+                throw new IllegalArgumentException("Expected "+(nCols*nRows)+" values but got "+values.length);
+            }
+            this.nCols = nCols;
+            this.nRows = nRows;
+            this.xll = xll;
+            this.yll = yll;
+            this.cellSize = cellSize;
+            int[] idx = new int[values.length];
+            double[] cum = new double[values.length];
+            int k = 0;
+            double sum = 0.0;
+            for (int i=0;i<values.length;i++) {
+                if (values[i]>0) {//also skips NaN
+                    sum += values[i];
+                    idx[k] = i;
+                    cum[k++] = sum;
+                }
+            }
+            cellIndex  = Arrays.copyOf(idx,k);
+            cumulative = Arrays.copyOf(cum,k);
+        }
+
+        /**
+         * Reads a raster in ESRI ASCII grid format (header keys ncols, nrows,
+         * xllcorner or xllcenter, yllcorner or yllcenter, cellsize and,
+         * optionally, nodata_value, followed by the values from the north row).
+         *
+         * @param file
+         * @return
+         * @throws IOException
+         */
+        public static DensityRaster read(File file) throws IOException {
+            int nC = -1, nR = -1;
+            double x = Double.NaN, y = Double.NaN, cs = Double.NaN, noData = Double.NaN;
+            boolean center = false;
+            double[] vals = null;
+            int nV = 0;
+            try (BufferedReader br = new BufferedReader(
+                    new InputStreamReader(new FileInputStream(file),StandardCharsets.UTF_8))) {
+                String line;
+                while ((line=br.readLine())!=null) {
+                    line = line.trim();
+                    if (line.isEmpty()) continue;
+                    String[] tok = line.split("\\s+");
+                    if ((vals==null)&&Character.isLetter(tok[0].charAt(0))) {
+                        String key = tok[0].toLowerCase();
+                        double v = Double.parseDouble(tok[1]);
+                        switch (key) {
+                            case "ncols":        nC = (int) v; break;
+                            case "nrows":        nR = (int) v; break;
+                            case "xllcenter":    center = true;//fall through
+                            case "xllcorner":    x = v; break;
+                            case "yllcenter":    center = true;//fall through
+                            case "yllcorner":    y = v; break;
+                            case "cellsize":     cs = v; break;
+                            case "nodata_value": noData = v; break;
+                            default: throw new IOException("Unknown raster header key '"+tok[0]+"' in "+file.getPath());
+                        }
+                        continue;
+                    }
+                    if (vals==null) {
+                        if ((nC<=0)||(nR<=0)||Double.isNaN(x)||Double.isNaN(y)||!(cs>0)) {
+                            throw new IOException("Incomplete raster header in "+file.getPath());
+                        }
+                        vals = new double[nC*nR];
+                    }
+                    for (String t: tok) {
+                        if (nV==vals.length) throw new IOException("Too many raster values in "+file.getPath());
+                        double v = Double.parseDouble(t);
+                        //file rows run from the north; store rows from the south
+                        int r = nR-1-nV/nC, col = nV%nC;
+                        vals[r*nC+col] = (v==noData) ? Double.NaN : v;
+                        nV++;
+                    }
+                }
+            } catch (NumberFormatException ex) {
+                throw new IOException("Bad raster value in "+file.getPath(),ex);
+            }
+            if ((vals==null)||(nV<vals.length)) {
+                throw new IOException("Expected "+(nC*nR)+" raster values but found "+nV+" in "+file.getPath());
+            }
+            if (center) {
+                x -= 0.5*cs;
+                y -= 0.5*cs;
+            }
+            return new DensityRaster(nC,nR,x,y,cs,vals);
+        }
+
+        /**
+         * Gets the sum of the positive cell values.
+         *
+         * @return
+         */
+        public double getTotal() {
+            return (cumulative.length>0) ? cumulative[cumulative.length-1] : 0.0;
+        }
+
+        /**
+         * Gets the number of cells with positive values.
+         *
+         * @return
+         */
+        public int getNumberOfCells() {
+            return cellIndex.length;
+        }
+
+        double getX(int cell, double f) {
+            return xll+cellSize*((cell%nCols)+f);
+        }
+
+        double getY(int cell, double f) {
+            return yll+cellSize*((cell/nCols)+f);
+        }
+    }
+
+    /**
+     * A piecewise-uniform distribution given by bin breaks and weights.
+     * A bin with equal lower and upper breaks is a point mass.
+     */
+    public static class Distribution {
+        /** bin breaks */
+        private final double[] breaks;
+        /** cumulative bin weights, normalized to 1 */
+        private final double[] cumulative;
+
+        /**
+         * Creates a distribution from bin breaks and weights.
+         *
+         * @param breaks  - bin breaks (non-decreasing, one more than weights)
+         * @param weights - bin weights (non-negative, not all 0)
+         */
+        public Distribution(double[] breaks, double[] weights) {
+            if (breaks.length!=weights.length+1) {
+                throw new IllegalArgumentException("Expected "+(weights.length+1)+" breaks but got "+breaks.length);
+            }
+            this.breaks = breaks.clone();
+            cumulative = new double[weights.length];
+            double sum = 0.0;
+            for (int b=0;b<weights.length;b++) {
+                if ((weights[b]<0)||(breaks[b+1]<breaks[b])) {
+                    throw new IllegalArgumentException("Bad bin "+b+" in distribution");
+                }
+                sum += weights[b];
+                cumulative[b] = sum;
+            }
+            if (!(sum>0)) throw new IllegalArgumentException("Distribution weights sum to 0");
+            for (int b=0;b<cumulative.length;b++) cumulative[b] /= sum;
+        }
+
+        /**
+         * Creates a uniform distribution.
+         *
+         * @param min
+         * @param max
+         * @return
+         */
+        public static Distribution uniform(double min, double max) {
+            return new Distribution(new double[]{min,max},new double[]{1.0});
+        }
+
+        /**
+         * Creates a distribution over a set of discrete values.
+         *
+         * @param values
+         * @param weights
+         * @return
+         */
+        public static Distribution discrete(double[] values, double[] weights) {
+            Integer[] ord = new Integer[values.length];
+            for (int i=0;i<ord.length;i++) ord[i] = i;
+            final double[] v = values;
+            Arrays.sort(ord,new Comparator<Integer>(){
+                @Override
+                public int compare(Integer a, Integer b) {
+                    return Double.compare(v[a],v[b]);
+                }
+            });
+            //consecutive zero-weight bins fill the gaps between the point masses
+            double[] brk = new double[2*values.length];
+            double[] wts = new double[2*values.length-1];
+            for (int i=0;i<ord.length;i++) {
+                brk[2*i] = brk[2*i+1] = values[ord[i]];
+                wts[2*i] = weights[ord[i]];
+            }
+            return new Distribution(brk,wts);
+        }
+
+        /**
+         * Draws a value.
+         *
+         * @param rng
+         * @return
+         */
+        public double sample(Random rng) {
+            double u = rng.nextDouble();
+            int b = Arrays.binarySearch(cumulative,u);
+            if (b<0) b = -b-1;
+            while ((b<cumulative.length-1)&&(cumulative[b]<=u)) b++;
+            return breaks[b]+rng.nextDouble()*(breaks[b+1]-breaks[b]);
+        }
+    }
+}
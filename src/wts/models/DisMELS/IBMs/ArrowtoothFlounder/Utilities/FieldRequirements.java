@@ -0,0 +1,223 @@
+/*
+ * FieldRequirements.java
+ *
+ * Created on October 19, 2026.
+ *
+ */
+
+package wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import wts.roms.model.Interpolator3D;
+import wts.roms.model.PhysicalEnvironment;
+
+/**
+ * The physical fields, and the layers of each, that a life stage uses.
+ *
+ * Each stage class declares its requirements in a public static field named
+ * FIELD_REQUIREMENTS, which the run setup can look up through forStage(...)
+ * to read only the fields the stages in a run need. A stage class without
+ * the declaration should be treated as requiring all fields. Declared
+ * requirements are frozen (see freeze()), so they cannot be changed after
+ * the stage class is loaded.
+ *
+ * The declarations include the velocities read by the Lagrangian particle
+ * (u, v and w) as well as the fields the stage interpolates itself. Since
+ * the fields are interpolated vertically between levels, a stage that stays
+ * on the bottom still needs all layers unless the interpolator is known to
+ * read only the bottom one.
+ *
+ * Field names are the ROMS variable names (e.g., "temp", "u", "zeta").
+ *
+ * @author agent
+ */
+public class FieldRequirements {
+
+    /** name of the static field declaring a stage's requirements */
+    public static final String FIELD_NAME = "FIELD_REQUIREMENTS";
+
+    /** layers of a field used by a stage */
+    public enum Layers {
+        /** field is horizontal (2D) */
+        HORIZONTAL,
+        /** only the bottom layer of a 3D field is used */
+        BOTTOM,
+        /** only the surface layer of a 3D field is used */
+        SURFACE,
+        /** all layers of a 3D field are used */
+        ALL
+    }
+
+    /** physical environment for which field availability was cached */
+    private static volatile PhysicalEnvironment availablePE = null;
+    /** field availability in availablePE */
+    private static volatile Map<String,Boolean> mapAvailable = new ConcurrentHashMap<>();
+
+    /** layers used, by field name */
+    private final Map<String,EnumSet<Layers>> mapFields = new TreeMap<>();
+    /** fields used only if present */
+    private final Set<String> optional = new TreeSet<>();
+    /** flag indicating the requirements can no longer be changed */
+    private boolean frozen = false;
+
+    /**
+     * Creates an empty set of requirements.
+     */
+    public FieldRequirements() {
+    }
+
+    /**
+     * Adds a required field.
+     *
+     * @param field  - field name
+     * @param layers - layers used
+     * @return - this instance
+     * @throws IllegalStateException - if the requirements are frozen
+     */
+    public FieldRequirements add(String field, Layers layers) {
+        if (frozen) throw new IllegalStateException("Field requirements are frozen");
+        EnumSet<Layers> set = mapFields.get(field);
+        if (set==null) {
+            set = EnumSet.noneOf(Layers.class);
+            mapFields.put(field,set);
+        }
+        set.add(layers);
+        if (set.contains(Layers.ALL)) set.retainAll(EnumSet.of(Layers.ALL));//all layers includes the others
+        optional.remove(field);
+        return this;
+    }
+
+    /**
+     * Adds a field that is used only if the physical environment provides it.
+     *
+     * @param field  - field name
+     * @param layers - layers used
+     * @return - this instance
+     * @throws IllegalStateException - if the requirements are frozen
+     */
+    public FieldRequirements addOptional(String field, Layers layers) {
+        boolean required = mapFields.containsKey(field)&&!optional.contains(field);
+        add(field,layers);
+        if (!required) optional.add(field);
+        return this;
+    }
+
+    /**
+     * Prevents further changes to the requirements.
+     *
+     * @return - this instance
+     */
+    public FieldRequirements freeze() {
+        frozen = true;
+        return this;
+    }
+
+    /**
+     * Checks whether the requirements can no longer be changed.
+     *
+     * @return
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * Gets the names of the fields used.
+     *
+     * @return
+     */
+    public Set<String> getFieldNames() {
+        return new TreeSet<>(mapFields.keySet());
+    }
+
+    /**
+     * Gets the layers of a field that are used.
+     *
+     * @param field
+     * @return - the layers (empty if the field is not used)
+     */
+    public EnumSet<Layers> getLayers(String field) {
+        EnumSet<Layers> set = mapFields.get(field);
+        return (set!=null) ? EnumSet.copyOf(set) : EnumSet.noneOf(Layers.class);
+    }
+
+    /**
+     * Checks whether a field is used only if present.
+     *
+     * @param field
+     * @return
+     */
+    public boolean isOptional(String field) {
+        return optional.contains(field);
+    }
+
+    /**
+     * Gets the requirements as a comma-separated list of field names, each
+     * followed by the layers used in brackets (e.g., "h[HORIZONTAL],temp[BOTTOM+SURFACE]").
+     * Optional fields are followed by "?".
+     *
+     * @return
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String,EnumSet<Layers>> e: mapFields.entrySet()) {
+            if (sb.length()>0) sb.append(",");
+            sb.append(e.getKey()).append(e.getValue().toString().replace(", ","+"));
+            if (optional.contains(e.getKey())) sb.append("?");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Gets the requirements declared by a stage class.
+     *
+     * @param cls - the stage class
+     * @return - the requirements, or null if the class does not declare them
+     */
+    public static FieldRequirements forStage(Class<?> cls) {
+        try {
+            Object obj = cls.getField(FIELD_NAME).get(null);
+            if (obj instanceof FieldRequirements) return (FieldRequirements) obj;
+        } catch (NoSuchFieldException|IllegalAccessException|NullPointerException ex) {
+            //fall through
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether the current physical environment provides a field.
+     * The result is cached until the physical environment object changes,
+     * so stages can check for optional fields on every time step without
+     * looking them up each time.
+     *
+     * @param i3d   - the interpolator
+     * @param field - field name
+     * @return
+     */
+    public static boolean isAvailable(Interpolator3D i3d, String field) {
+        PhysicalEnvironment pe = i3d.getPhysicalEnvironment();
+        if (pe==null) return false;
+        Map<String,Boolean> map = mapAvailable;
+        if (pe!=availablePE) {
+            synchronized (FieldRequirements.class) {
+                if (pe!=availablePE) {
+                    mapAvailable = new ConcurrentHashMap<>();
+                    availablePE = pe;
+                }
+                map = mapAvailable;
+            }
+        }
+        Boolean b = map.get(field);
+        if (b==null) {
+            b = (pe.getField(field)!=null);
+            map.put(field,b);
+        }
+        return b;
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * GridCellID.java
+ *
+ * Created on October 19, 2026.
+ *
+ */
+
+package wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities;
+
+/**
+ * Immutable grid cell (I,J) and its gridCellID string ("I_J"), so a stage
+ * can re-use the string while an individual stays in the same grid cell
+ * instead of creating a new one on every time step.
+ *
+ * Usage (in a stage's updatePosition(...)):
+ * <pre>
+ *      gridCell   = GridCellID.update(gridCell,gridCellID,pos);
+ *      gridCellID = gridCell.getID();
+ * </pre>
+ * Since instances are immutable, they can be shared by cloned stages.
+ *
+ * @author agent
+ */
+public final class GridCellID {
+
+    /** grid cell indices */
+    private final long iCell, jCell;
+    /** gridCellID string */
+    private final String id;
+
+    private GridCellID(long iCell, long jCell) {
+        this.iCell = iCell;
+        this.jCell = jCell;
+        this.id    = ""+iCell+"_"+jCell;
+    }
+
+    /**
+     * Gets the grid cell for a position, re-using the last one if the
+     * position is in the same cell.
+     *
+     * @param last    - the grid cell of the last position (may be null)
+     * @param current - the stage's current gridCellID (it may have been reset from the attributes)
+     * @param pos     - position as IJK
+     * @return - the grid cell
+     */
+    public static GridCellID update(GridCellID last, String current, double[] pos) {
+        long iCell = Math.round(pos[0]);
+        long jCell = Math.round(pos[1]);
+        //identity test: current may have been reset from the attributes
+        if ((last!=null)&&(current==last.id)&&(iCell==last.iCell)&&(jCell==last.jCell)) return last;
+        return new GridCellID(iCell,jCell);
+    }
+
+    /**
+     * Gets the gridCellID string.
+     *
+     * @return
+     */
+    public String getID() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return id;
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * GridExitSummary.java
+ *
+ * Created on October 19, 2026.
+ *
+ */
+
+package wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities;
+
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+import wts.models.DisMELS.framework.GlobalInfo;
+import wts.models.utilities.CalendarIF;
+
+/**
+ * Aggregates grid exits by stage and boundary segment and logs one summary
+ * per reporting interval, instead of one log line per individual.
+ *
+ * A boundary segment is a block of BLOCK_SIZE x BLOCK_SIZE grid cells,
+ * identified as "iBlock_jBlock" from the position where the individual
+ * exited the grid. Since exits only occur at the grid edge, each block
+ * corresponds to a segment of the boundary.
+ *
+ * The reporting interval (in days of model time) defaults to 1 and can be
+ * set by setReportInterval(...) or the system property PROP_reportInterval.
+ * The block size (in grid cells) defaults to 10 and can be set by the
+ * system property PROP_blockSize.
+ *
+ * The interval is checked at each exit. Model time may run forward or
+ * backward, so an interval ends when the model time is reportInterval away
+ * from its start in either direction.
+ *
+ * The summary is otherwise only logged when asked: the run should call
+ * flush() (or stop()) at its end to log the last interval. Calling start()
+ * also starts a daemon timer that checks, every PROP_flushPeriod seconds of
+ * wall time (default 60), whether the model time (from the global calendar)
+ * has passed the end of the current interval, so an interval is logged
+ * without waiting for another exit, and logs any exits not yet reported
+ * when the JVM shuts down. If PROP_flushPeriod is set to a positive value,
+ * start() is called by the first exit. Nothing is started otherwise.
+ *
+ * @author agent
+ */
+public class GridExitSummary {
+
+    /** system property giving the reporting interval (days) */
+    public static final String PROP_reportInterval =
+            "wts.models.DisMELS.IBMs.ArrowtoothFlounder.gridExitReportInterval";
+    /** system property giving the size of boundary segment blocks (grid cells) */
+    public static final String PROP_blockSize =
+            "wts.models.DisMELS.IBMs.ArrowtoothFlounder.gridExitBlockSize";
+    /** system property giving the period of the flush timer (wall-clock seconds); if set, the first exit calls start() */
+    public static final String PROP_flushPeriod =
+            "wts.models.DisMELS.IBMs.ArrowtoothFlounder.gridExitFlushPeriod";
+
+    private static final Logger logger = Logger.getLogger(GridExitSummary.class.getName());
+
+    /** seconds per day */
+    private static final double DAY_SECS = 86400.0;
+
+    /** size of boundary segment blocks (grid cells) */
+    private static final int BLOCK_SIZE = Math.max(1,Integer.getInteger(PROP_blockSize,10));
+    /** reporting interval (s) */
+    private static double reportInterval = DAY_SECS*getDoubleProperty(PROP_reportInterval,1.0);
+    /** model time at which the current interval started */
+    private static double startTime = Double.NaN;
+    /** counts and numbers of exits in the current interval, by stage, then by segment */
+    private static final Map<String,Map<String,double[]>> mapCounts = new TreeMap<>();
+    /** flush timer (null if not started) */
+    private static Timer timer = null;
+    /** flag indicating the shutdown hook has been added */
+    private static boolean hookAdded = false;
+    /** flag indicating PROP_flushPeriod has been checked by record(...) */
+    private static boolean checkedProperty = false;
+
+    private GridExitSummary(){}
+
+    /**
+     * Starts the flush timer (period given by PROP_flushPeriod, default 60 s)
+     * and adds a shutdown hook that logs any exits not yet reported. Does 
+     * nothing if the timer is already running.
+     */
+    public static synchronized void start() {
+        if (timer!=null) return;
+        long period = 1000L*Math.max(1,Integer.getInteger(PROP_flushPeriod,60));
+        timer = new Timer("GridExitSummary",true);
+        timer.schedule(new TimerTask(){
+            @Override
+            public void run() {
+                GridExitSummary.checkPending();
+            }
+        },period,period);
+        if (!hookAdded) {
+            hookAdded = true;
+            Runtime.getRuntime().addShutdownHook(new Thread(){
+                @Override
+                public void run() {
+                    GridExitSummary.flush();
+                }
+            });
+        }
+    }
+
+    /**
+     * Logs any exits not yet reported and stops the flush timer (e.g., at
+     * the end of a run).
+     */
+    public static synchronized void stop() {
+        flush();
+        if (timer!=null) {
+            timer.cancel();
+            timer = null;
+        }
+    }
+
+    /**
+     * Sets the reporting interval.
+     *
+     * @param days - interval in days of model time
+     */
+    public static synchronized void setReportInterval(double days) {
+        reportInterval = days*DAY_SECS;
+    }
+
+    /**
+     * Records an individual exiting the grid. If the current reporting
+     * interval has ended, the summary for it is logged first.
+     *
+     * @param stage  - stage type name
+     * @param time   - model time (s)
+     * @param number - number of individuals represented
+     * @param pos    - position as IJK
+     */
+    public static synchronized void record(String stage, double time, double number, double[] pos) {
+        if (!checkedProperty) {
+            checkedProperty = true;
+            if (Integer.getInteger(PROP_flushPeriod,0)>0) start();
+        }
+        if (Double.isNaN(startTime)) {
+            startTime = time;
+        } else if (Math.abs(time-startTime)>=reportInterval) {
+            report(time);
+        }
+        Map<String,double[]> mapSegs = mapCounts.get(stage);
+        if (mapSegs==null) {
+            mapSegs = new TreeMap<>();
+            mapCounts.put(stage,mapSegs);
+        }
+        String seg = ""+((long)Math.floor(pos[0]/BLOCK_SIZE))+"_"+((long)Math.floor(pos[1]/BLOCK_SIZE));
+        double[] cnt = mapSegs.get(seg);
+        if (cnt==null) {
+            cnt = new double[2];
+            mapSegs.put(seg,cnt);
+        }
+        cnt[0]++;
+        cnt[1] += number;
+    }
+
+    /**
+     * Logs any exits not yet reported (e.g., at the end of a run). The next
+     * interval starts at the next exit.
+     */
+    public static void flush() {
+        report(Double.NaN);
+    }
+
+    /**
+     * Called by the flush timer. Logs pending exits if the model time has
+     * passed the end of the current interval.
+     */
+    private static synchronized void checkPending() {
+        if (mapCounts.isEmpty()) return;
+        GlobalInfo gi = GlobalInfo.getInstance();
+        CalendarIF cal = (gi!=null) ? gi.getCalendar() : null;
+        if (cal==null) return;//no model set up
+        if (Math.abs(cal.getTimeOffset()-startTime)>=reportInterval) report(Double.NaN);
+    }
+
+    /**
+     * Logs the summary for the current interval and starts a new one.
+     *
+     * @param time - model time starting the new interval (NaN to start it at the next exit)
+     */
+    public static synchronized void report(double time) {
+        if (!mapCounts.isEmpty()) {
+            StringBuilder sb = new StringBuilder("Grid exits since model time ").append(startTime)
+                    .append(" s (individuals/number by segment of ").append(BLOCK_SIZE)
+                    .append("x").append(BLOCK_SIZE).append(" cells):");
+            for (Map.Entry<String,Map<String,double[]>> es: mapCounts.entrySet()) {
+                long n = 0;
+                double num = 0.0;
+                StringBuilder sbs = new StringBuilder();
+                for (Map.Entry<String,double[]> eg: es.getValue().entrySet()) {
+                    double[] cnt = eg.getValue();
+                    n += (long) cnt[0];
+                    num += cnt[1];
+                    sbs.append(" ").append(eg.getKey()).append(": ")
+                       .append((long) cnt[0]).append("/").append(cnt[1]).append(";");
+                }
+                sb.append("\n    ").append(es.getKey()).append(": ").append(n).append("/").append(num)
+                  .append(" --").append(sbs);
+            }
+            logger.info(sb.toString());
+            mapCounts.clear();
+        }
+        startTime = time;
+    }
+
+    private static double getDoubleProperty(String key, double def) {
+        String str = System.getProperty(key);
+        if ((str==null)||str.isEmpty()) return def;
+        try {
+            return Double.parseDouble(str);
+        } catch (NumberFormatException ex) {
+            logger.warning("Could not parse "+key+"="+str+". Using "+def);
+            return def;
+        }
+    }
+}
@@ -0,0 +1,343 @@
+/*
+ * InitialAttributesLoader.java
+ *
+ * Created on October 19, 2026.
+ *
+ */
+
+package wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import wts.models.DisMELS.framework.LifeStageAttributesInterface;
+import wts.models.DisMELS.framework.LifeStageInterface;
+
+/**
+ * Loads initial attributes for individuals from CSV files (plain or gzipped)
+ * without user interaction, for use on headless machines and for large
+ * release files.
+ *
+ * The file is read in chunks of lines. Each chunk is split and converted to
+ * typed values (Double, Long, Boolean, etc., following getClasses()) on a
+ * worker thread, so each value is parsed once. The attributes are then
+ * created on the calling thread, in file order, with the (String typeName)
+ * constructor of the schema's class and setValue(key,value) for each column.
+ * createInstance(String[]) is not used: the attribute classes parse values
+ * through shared static IBMAttribute objects, and report bad values with a
+ * dialog. Bad rows (with too few or too many values, a type name other than
+ * the schema's, values that do not parse, or String values containing a
+ * quote, which is a sign of a quoted CSV field split at a comma) are skipped
+ * and collected into a single error report instead of raising a dialog for
+ * each one.
+ *
+ * The first line is skipped if it is a header (i.e., its id column is not a
+ * number). Blank lines and lines starting with "#" are skipped.
+ *
+ * @author agent
+ */
+public class InitialAttributesLoader {
+
+    /** lines per chunk */
+    private static final int CHUNK_SIZE = 4096;
+    /** maximum number of bad rows described in the error report */
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    private static final Logger logger = Logger.getLogger(InitialAttributesLoader.class.getName());
+
+    /** attributes instance defining the columns */
+    private final LifeStageAttributesInterface schema;
+    /** column classes (including typeName) */
+    private final Class[] classes;
+    /** column short names (including typeName) */
+    private final String[] names;
+    /** attribute keys (excluding typeName) */
+    private final String[] keys;
+    /** type name expected in the first column */
+    private final String typeName;
+    /** (String typeName) constructor of the attributes class */
+    private final Constructor<? extends LifeStageAttributesInterface> ctor;
+    /** number of worker threads */
+    private final int nThreads;
+
+    /** loaded attributes */
+    private final List<LifeStageAttributesInterface> loaded = new ArrayList<>();
+    /** descriptions of bad rows */
+    private final List<String> errors = new ArrayList<>();
+    /** number of bad rows */
+    private int nErrors = 0;
+
+    /**
+     * Creates a loader for attributes of the class of schema.
+     *
+     * @param schema - an attributes instance of the class to load
+     * @throws IllegalArgumentException if the class of schema has no public
+     *                                  (String typeName) constructor
+     */
+    public InitialAttributesLoader(LifeStageAttributesInterface schema) {
+        this.schema = schema;
+        classes  = schema.getClasses().clone();
+        names    = schema.getShortNames().clone();
+        keys     = schema.getKeys().clone();
+        typeName = schema.getTypeName();
+        try {
+            ctor = schema.getClass().getConstructor(String.class);
+        } catch (NoSuchMethodException ex) {
+            throw new IllegalArgumentException(schema.getClass().getName()+" has no (String typeName) constructor",ex);
+        }
+        nThreads = Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Loads the attributes from a file. Files ending in ".gz" (or starting with
+     * the gzip signature) are decompressed.
+     *
+     * @param file - the initial attributes file
+     * @return - the attributes for the good rows, in file order
+     * @throws IOException
+     */
+    public List<LifeStageAttributesInterface> load(File file) throws IOException {
+        loaded.clear();
+        errors.clear();
+        nErrors = 0;
+        ExecutorService exec = Executors.newFixedThreadPool(nThreads);
+        ArrayDeque<Future<Chunk>> pending = new ArrayDeque<>();
+        try (BufferedReader br = new BufferedReader(
+                new InputStreamReader(open(file),ColumnarAttributesWriter.UTF8),1<<20)) {
+            long lineNum = 0;
+            List<String> lines = new ArrayList<>(CHUNK_SIZE);
+            long firstLine = 1;
+            String line;
+            while ((line=br.readLine())!=null) {
+                lineNum++;
+                if (lines.isEmpty()) firstLine = lineNum;
+                lines.add(line);
+                if (lines.size()==CHUNK_SIZE) {
+                    pending.add(exec.submit(new Parser(lines,firstLine)));
+                    lines = new ArrayList<>(CHUNK_SIZE);
+                    while (pending.size()>2*nThreads) build(next(pending));
+                }
+            }
+            if (!lines.isEmpty()) pending.add(exec.submit(new Parser(lines,firstLine)));
+            while (!pending.isEmpty()) build(next(pending));
+        } finally {
+            exec.shutdownNow();
+        }
+        logger.info("Loaded "+loaded.size()+" individuals from "+file.getPath()+
+                    ((nErrors>0) ? " ("+nErrors+" bad rows skipped)" : ""));
+        return new ArrayList<>(loaded);
+    }
+
+    /**
+     * Creates individuals from the loaded attributes.
+     *
+     * @param factory - an instance of the stage class
+     * @return - the new individuals
+     * @throws InstantiationException
+     * @throws IllegalAccessException
+     */
+    public List<LifeStageInterface> createIndividuals(LifeStageInterface factory)
+                                        throws InstantiationException, IllegalAccessException {
+        List<LifeStageInterface> res = new ArrayList<>(loaded.size());
+        for (LifeStageAttributesInterface atts: loaded) res.add(factory.createInstance(atts));
+        return res;
+    }
+
+    /**
+     * Gets the number of bad rows in the last load.
+     *
+     * @return
+     */
+    public int getNumberOfErrors() {
+        return nErrors;
+    }
+
+    /**
+     * Gets descriptions of the bad rows in the last load (at most
+     * MAX_REPORTED_ERRORS).
+     *
+     * @return
+     */
+    public List<String> getErrors() {
+        return new ArrayList<>(errors);
+    }
+
+    /**
+     * Writes the error report for the last load.
+     *
+     * @param pw - writer for the report
+     */
+    public void writeErrorReport(PrintWriter pw) {
+        pw.println(nErrors+" bad rows in initial attributes ("+schema.getClass().getSimpleName()+")");
+        for (String err: errors) pw.println(err);
+        if (nErrors>errors.size()) pw.println("... "+(nErrors-errors.size())+" more");
+        pw.flush();
+    }
+
+    private static InputStream open(File file) throws IOException {
+        BufferedInputStream is = new BufferedInputStream(new FileInputStream(file),1<<16);
+        is.mark(2);
+        int b1 = is.read(), b2 = is.read();
+        is.reset();
+        if (file.getName().endsWith(".gz")||((b1==0x1f)&&(b2==0x8b))) {
+            return new GZIPInputStream(is,1<<16);
+        }
+        return is;
+    }
+
+    private Chunk next(ArrayDeque<Future<Chunk>> pending) throws IOException {
+        try {
+            return pending.poll().get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading initial attributes",ex);
+        } catch (ExecutionException ex) {
+            throw new IOException("Error parsing initial attributes",ex.getCause());
+        }
+    }
+
+    private void build(Chunk chunk) throws IOException {
+        for (int r=0;r<chunk.rows.size();r++) {
+            Object[] vals = chunk.rows.get(r);
+            try {
+                LifeStageAttributesInterface atts = ctor.newInstance(typeName);
+                for (int c=1;c<vals.length;c++) atts.setValue(keys[c-1],vals[c]);
+                loaded.add(atts);
+            } catch (InstantiationException|IllegalAccessException|InvocationTargetException ex) {
+                throw new IOException("Could not create "+schema.getClass().getName(),ex);
+            } catch (RuntimeException ex) {
+                addError("line "+chunk.lineNums.get(r)+": "+ex.toString());
+            }
+        }
+        for (String err: chunk.errors) addError(err);
+        nErrors += chunk.nSkippedErrors;
+    }
+
+    private void addError(String err) {
+        nErrors++;
+        if (errors.size()<MAX_REPORTED_ERRORS) errors.add(err);
+    }
+
+    /** parsed lines */
+    private static final class Chunk {
+        /** typed values (including typeName) of the good rows */
+        final List<Object[]> rows = new ArrayList<>();
+        final List<Long> lineNums = new ArrayList<>();
+        final List<String> errors = new ArrayList<>();
+        int nSkippedErrors = 0;
+    }
+
+    /** splits a chunk of lines and converts the values */
+    private final class Parser implements Callable<Chunk> {
+        private final List<String> lines;
+        private final long firstLine;
+
+        Parser(List<String> lines, long firstLine) {
+            this.lines = lines;
+            this.firstLine = firstLine;
+        }
+
+        @Override
+        public Chunk call() {
+            Chunk chunk = new Chunk();
+            for (int l=0;l<lines.size();l++) {
+                long lineNum = firstLine+l;
+                String line = lines.get(l).trim();
+                if (line.isEmpty()||line.startsWith("#")) continue;
+                String[] strv = line.split(",",-1);
+                for (int c=0;c<strv.length;c++) strv[c] = strv[c].trim();
+                if ((lineNum==1)&&isHeader(strv)) continue;
+                Object[] vals = new Object[classes.length];
+                String err = convert(strv,vals);
+                if (err==null) {
+                    chunk.rows.add(vals);
+                    chunk.lineNums.add(lineNum);
+                } else if (chunk.errors.size()<MAX_REPORTED_ERRORS) {
+                    chunk.errors.add("line "+lineNum+": "+err);
+                } else {
+                    chunk.nSkippedErrors++;
+                }
+            }
+            return chunk;
+        }
+    }
+
+    private boolean isHeader(String[] strv) {
+        try {
+            Long.parseLong(strv[1]);
+            return false;
+        } catch (NumberFormatException|ArrayIndexOutOfBoundsException ex) {
+            return true;
+        }
+    }
+
+    /**
+     * Checks a row against the attribute classes and converts its values.
+     *
+     * @param strv - the row
+     * @param vals - array (of length classes.length) for the converted values
+     * @return - null if the row is good, otherwise a description of the problem
+     */
+    private String convert(String[] strv, Object[] vals) {
+        if (strv.length<classes.length) {
+            return "expected "+classes.length+" values but found "+strv.length+
+                   " (missing '"+names[strv.length]+"')";
+        }
+        if (strv.length>classes.length) {
+            return "expected "+classes.length+" values but found "+strv.length+
+                   " (extra value '"+strv[classes.length]+"' after '"+names[classes.length-1]+"')";
+        }
+        if (!typeName.equals(strv[0])) {
+            return "bad type name '"+strv[0]+"' (expected '"+typeName+"')";
+        }
+        vals[0] = typeName;
+        for (int c=1;c<classes.length;c++) {
+            String v = strv[c];
+            try {
+                if (classes[c]==Double.class) {
+                    vals[c] = Double.valueOf(v);
+                } else if (classes[c]==Float.class) {
+                    vals[c] = Float.valueOf(v);
+                } else if (classes[c]==Long.class) {
+                    vals[c] = Long.valueOf(v);
+                } else if (classes[c]==Integer.class) {
+                    vals[c] = Integer.valueOf(v);
+                } else if (classes[c]==Short.class) {
+                    vals[c] = Short.valueOf(v);
+                } else if (classes[c]==Boolean.class) {
+                    if (!("true".equalsIgnoreCase(v)||"false".equalsIgnoreCase(v))) {
+                        return "bad value '"+v+"' for '"+names[c]+"' (expected true or false)";
+                    }
+                    vals[c] = Boolean.valueOf(v);
+                } else if (classes[c]==String.class) {
+                    if (v.indexOf('"')>=0) {
+                        return "bad value '"+v+"' for '"+names[c]+"' (quoted values are not supported)";
+                    }
+                    vals[c] = v;
+                } else {
+                    return "unsupported class "+classes[c].getSimpleName()+" for '"+names[c]+"'";
+                }
+            } catch (NumberFormatException ex) {
+                return "bad value '"+v+"' for '"+names[c]+"' (expected "+classes[c].getSimpleName()+")";
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * InterpolationMemo.java
+ *
+ * Created on October 19, 2026.
+ *
+ */
+
+package wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import wts.models.DisMELS.framework.GlobalInfo;
+import wts.models.utilities.CalendarIF;
+import wts.roms.model.Interpolator3D;
+import wts.roms.model.PhysicalEnvironment;
+
+/**
+ * Shares interpolated position and environmental values among sibling eggs
+ * released at the same position (e.g., by a spawning adult), so each value
+ * is interpolated once for the siblings instead of once per egg.
+ *
+ * Each thread keeps the values for the last position it interpolated. The
+ * values are reused only if the next call is for exactly the same position
+ * and the same physical-environment slice (the same PhysicalEnvironment
+ * object at the same calendar time), which is the case for siblings stepped
+ * one after the other. Any other call replaces the values, without
+ * allocating or locking, so the memo costs little when it does not hit.
+ * Only EggStage uses it, since individuals of the other stages rarely share
+ * an exact position.
+ *
+ * The memo is only used if the system property PROP_enabled is "true";
+ * otherwise the static methods call the interpolator directly. The numbers
+ * of values found in and added to the memo are available through getHits()
+ * and getMisses().
+ *
+ * @author agent
+ */
+public class InterpolationMemo {
+
+    /** system property enabling the memo */
+    public static final String PROP_enabled =
+            "wts.models.DisMELS.IBMs.ArrowtoothFlounder.interpolationMemo";
+
+    /** indices of the memoized values */
+    private static final int BATHYM = 0, DEPTH = 1, LAT = 2, LON = 3, TEMP = 4, SALT = 5, RHO = 6;
+    /** number of memoized values */
+    private static final int NUM_VALUES = 7;
+
+    /** flag to use the memo */
+    private static final boolean enabled = Boolean.getBoolean(PROP_enabled);
+
+    /** entries of all threads (for the hit and miss counts) */
+    private static final List<Entry> allEntries = new CopyOnWriteArrayList<>();
+    /** entry for the current thread */
+    private static final ThreadLocal<Entry> entry = new ThreadLocal<Entry>(){
+        @Override
+        protected Entry initialValue() {
+            Entry e = new Entry();
+            allEntries.add(e);
+            return e;
+        }
+    };
+
+    private InterpolationMemo(){}
+
+    /**
+     * Checks whether the memo is in use.
+     *
+     * @return
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Gets the total number of values found in the memo.
+     *
+     * @return
+     */
+    public static long getHits() {
+        long n = 0;
+        for (Entry e: allEntries) n += e.hits;
+        return n;
+    }
+
+    /**
+     * Gets the total number of values interpolated and added to the memo.
+     *
+     * @return
+     */
+    public static long getMisses() {
+        long n = 0;
+        for (Entry e: allEntries) n += e.misses;
+        return n;
+    }
+
+    /**
+     * Interpolates the bathymetric depth at a position.
+     *
+     * @param i3d - the interpolator
+     * @param pos - position as IJK
+     * @return
+     */
+    public static double interpolateBathymetricDepth(Interpolator3D i3d, double[] pos) {
+        if (!enabled) return i3d.interpolateBathymetricDepth(pos);
+        Entry e = getEntry(i3d,pos);
+        if (e.has(BATHYM)) return e.hit(BATHYM);
+        return e.put(BATHYM,i3d.interpolateBathymetricDepth(pos));
+    }
+
+    /**
+     * Calculates the depth (positive down) at a position.
+     *
+     * @param i3d - the interpolator
+     * @param pos - position as IJK
+     * @return
+     */
+    public static double calcDepth(Interpolator3D i3d, double[] pos) {
+        if (!enabled) return -i3d.calcZfromK(pos[0],pos[1],pos[2]);
+        Entry e = getEntry(i3d,pos);
+        if (e.has(DEPTH)) return e.hit(DEPTH);
+        return e.put(DEPTH,-i3d.calcZfromK(pos[0],pos[1],pos[2]));
+    }
+
+    /**
+     * Interpolates the latitude at a position.
+     *
+     * @param i3d - the interpolator
+     * @param pos - position as IJK
+     * @return
+     */
+    public static double interpolateLat(Interpolator3D i3d, double[] pos) {
+        if (!enabled) return i3d.interpolateLat(pos);
+        Entry e = getEntry(i3d,pos);
+        if (e.has(LAT)) return e.hit(LAT);
+        return e.put(LAT,i3d.interpolateLat(pos));
+    }
+
+    /**
+     * Interpolates the longitude at a position.
+     *
+     * @param i3d - the interpolator
+     * @param pos - position as IJK
+     * @return
+     */
+    public static double interpolateLon(Interpolator3D i3d, double[] pos) {
+        if (!enabled) return i3d.interpolateLon(pos);
+        Entry e = getEntry(i3d,pos);
+        if (e.has(LON)) return e.hit(LON);
+        return e.put(LON,i3d.interpolateLon(pos));
+    }
+
+    /**
+     * Interpolates the temperature at a position.
+     *
+     * @param i3d - the interpolator
+     * @param pos - position as IJK
+     * @return
+     */
+    public static double interpolateTemperature(Interpolator3D i3d, double[] pos) {
+        if (!enabled) return i3d.interpolateTemperature(pos);
+        Entry e = getEntry(i3d,pos);
+        if (e.has(TEMP)) return e.hit(TEMP);
+        return e.put(TEMP,i3d.interpolateTemperature(pos));
+    }
+
+    /**
+     * Interpolates the salinity at a position.
+     *
+     * @param i3d - the interpolator
+     * @param pos - position as IJK
+     * @return
+     */
+    public static double interpolateSalinity(Interpolator3D i3d, double[] pos) {
+        if (!enabled) return i3d.interpolateSalinity(pos);
+        Entry e = getEntry(i3d,pos);
+        if (e.has(SALT)) return e.hit(SALT);
+        return e.put(SALT,i3d.interpolateSalinity(pos));
+    }
+
+    /**
+     * Interpolates the in situ density ("rho") at a position.
+     *
+     * @param i3d - the interpolator
+     * @param pos - position as IJK
+     * @return
+     */
+    public static double interpolateRho(Interpolator3D i3d, double[] pos) {
+        if (!enabled) return i3d.interpolateValue(pos,"rho");
+        Entry e = getEntry(i3d,pos);
+        if (e.has(RHO)) return e.hit(RHO);
+        return e.put(RHO,i3d.interpolateValue(pos,"rho"));
+    }
+
+    /**
+     * Gets the current thread's entry, cleared unless it holds values for
+     * the same position and physical-environment slice.
+     *
+     * @param i3d - the interpolator
+     * @param pos - position as IJK
+     * @return
+     */
+    private static Entry getEntry(Interpolator3D i3d, double[] pos) {
+        Entry e = entry.get();
+        PhysicalEnvironment pe = i3d.getPhysicalEnvironment();
+        GlobalInfo gi = GlobalInfo.getInstance();
+        CalendarIF cal = (gi!=null) ? gi.getCalendar() : null;
+        double sliceTime = (cal!=null) ? cal.getTimeOffset() : Double.NaN;
+        if ((e.pe!=pe)||(Double.compare(e.sliceTime,sliceTime)!=0)||
+            (Double.compare(e.i,pos[0])!=0)||(Double.compare(e.j,pos[1])!=0)||(Double.compare(e.k,pos[2])!=0)) {
+            e.pe = pe;
+            e.sliceTime = sliceTime;
+            e.i = pos[0];
+            e.j = pos[1];
+            e.k = pos[2];
+            e.computed = 0;
+        }
+        return e;
+    }
+
+    /** memoized values at the last position interpolated by one thread */
+    private static final class Entry {
+        PhysicalEnvironment pe = null;
+        double sliceTime = Double.NaN;
+        double i = Double.NaN, j = Double.NaN, k = Double.NaN;
+        final double[] values = new double[NUM_VALUES];
+        int computed = 0;
+        /** counts (written by the owning thread only) */
+        volatile long hits = 0, misses = 0;
+
+        boolean has(int v) {
+            return (computed&(1<<v))!=0;
+        }
+
+        double hit(int v) {
+            hits++;
+            return values[v];
+        }
+
+        double put(int v, double value) {
+            misses++;
+            values[v] = value;
+            computed |= (1<<v);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * LifeStageEvent.java
+ *
+ * Created on October 19, 2026.
+ *
+ */
+
+package wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities;
+
+/**
+ * An event in the life of an individual (stage transition, spawning, 
+ * leaving the grid or the region of interest, or death from exceeding a 
+ * maximum stage duration or development stage). See LifeStageEvents.
+ * 
+ * @author agent
+ */
+public class LifeStageEvent {
+    
+    /** event types */
+    public static enum Type {
+        /** individual transitioned (in whole or in part) to the next stage */
+        TRANSITION,
+        /** adult spawned new individuals */
+        SPAWNING,
+        /** individual exited the model grid */
+        GRID_EXIT,
+        /** individual left the region of interest */
+        ROI_EXIT,
+        /** individual died from exceeding the maximum stage duration */
+        MAX_STAGE_DURATION,
+        /** individual died from exceeding the maximum development stage */
+        MAX_DEV_STAGE
+    }
+    
+    /** event type */
+    public final Type type;
+    /** type name of the individual's stage */
+    public final String stage;
+    /** individual's id */
+    public final long id;
+    /** model time (s) */
+    public final double time;
+    /** number of individuals affected (transitioning, spawning or lost) */
+    public final double number;
+    /** latitude */
+    public final double lat;
+    /** longitude */
+    public final double lon;
+    /** depth (m) */
+    public final double depth;
+    /** type name of the next stage (TRANSITION events only) */
+    public final String nextStage;
+    /** number of spawned individuals created (SPAWNING events only) */
+    public final int numSpawned;
+    
+    /**
+     * Creates a new event.
+     * 
+     * @param type       - event type
+     * @param stage      - stage type name
+     * @param id         - individual's id
+     * @param time       - model time (s)
+     * @param number     - number of individuals affected
+     * @param lat        - latitude
+     * @param lon        - longitude
+     * @param depth      - depth (m)
+     * @param nextStage  - next stage type name (or null)
+     * @param numSpawned - number of spawned individuals (or 0)
+     */
+    public LifeStageEvent(Type type, String stage, long id, double time, double number,
+                          double lat, double lon, double depth,
+                          String nextStage, int numSpawned) {
+        this.type       = type;
+        this.stage      = stage;
+        this.id         = id;
+        this.time       = time;
+        this.number     = number;
+        this.lat        = lat;
+        this.lon        = lon;
+        this.depth      = depth;
+        this.nextStage  = nextStage;
+        this.numSpawned = numSpawned;
+    }
+    
+    /**
+     * Gets a header line for the CSV format given by toCSV().
+     * 
+     * @return 
+     */
+    public static String getCSVHeader() {
+        return "type,stage,id,time,number,lat,lon,depth,nextStage,numSpawned";
+    }
+    
+    /**
+     * Gets the event as a line of comma-separated values.
+     * 
+     * @return 
+     */
+    public String toCSV() {
+        return type+","+stage+","+id+","+time+","+number+","+lat+","+lon+","+depth+","+
+               ((nextStage!=null) ? nextStage : "")+","+numSpawned;
+    }
+    
+    @Override
+    public String toString() {
+        return toCSV();
+    }
+}
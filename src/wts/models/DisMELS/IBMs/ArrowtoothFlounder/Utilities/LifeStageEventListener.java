@@ -0,0 +1,23 @@
+/*
+ * LifeStageEventListener.java
+ *
+ * Created on October 19, 2026.
+ *
+ */
+
+package wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities;
+
+/**
+ * Listener for LifeStageEvents.
+ * 
+ * @author agent
+ */
+public interface LifeStageEventListener {
+    
+    /**
+     * Called when an event occurs. May be called from several threads at once.
+     * 
+     * @param e - the event
+     */
+    public void lifeStageEvent(LifeStageEvent e);
+}
@@ -0,0 +1,163 @@
+/*
+ * LifeStageEvents.java
+ *
+ * Created on October 19, 2026.
+ *
+ */
+
+package wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import wts.models.DisMELS.framework.LifeStageAttributesInterface;
+import wts.models.DisMELS.framework.LifeStageInterface;
+
+/**
+ * Dispatches typed LifeStageEvents (stage transitions, spawning, grid and 
+ * region-of-interest exits, and deaths from maximum stage duration or 
+ * development stage) to registered listeners.
+ * 
+ * Stage classes should only create events when isEnabled() is true, so no
+ * events are created when nobody is listening.
+ * 
+ * Setting the system property given by PROP_eventFile to a file name writes
+ * all events to that file as CSV.
+ * 
+ * @author agent
+ */
+public class LifeStageEvents {
+    
+    /** system property giving a file to write events to */
+    public static final String PROP_eventFile = 
+            "wts.models.DisMELS.IBMs.ArrowtoothFlounder.lifeStageEventFile";
+    
+    /** registered listeners */
+    private static final CopyOnWriteArrayList<LifeStageEventListener> listeners = 
+            new CopyOnWriteArrayList<>();
+    /** flag indicating there are listeners */
+    private static volatile boolean enabled = false;
+    
+    private static final Logger logger = Logger.getLogger(LifeStageEvents.class.getName());
+    
+    static {
+        String fn = System.getProperty(PROP_eventFile);
+        if ((fn!=null)&&!fn.isEmpty()) {
+            try {
+                final PrintWriter pw = new PrintWriter(new BufferedWriter(new FileWriter(fn)));
+                pw.println(LifeStageEvent.getCSVHeader());
+                addListener(new LifeStageEventListener(){
+                    @Override
+                    public synchronized void lifeStageEvent(LifeStageEvent e) {
+                        pw.println(e.toCSV());
+                    }
+                });
+                Runtime.getRuntime().addShutdownHook(new Thread(){
+                    @Override
+                    public void run() {
+                        pw.close();
+                    }
+                });
+            } catch (IOException ex) {
+                logger.log(Level.WARNING,"Could not write life stage events to "+fn,ex);
+            }
+        }
+    }
+    
+    private LifeStageEvents(){}
+    
+    /**
+     * Adds a listener.
+     * 
+     * @param l 
+     */
+    public static synchronized void addListener(LifeStageEventListener l) {
+        listeners.add(l);
+        enabled = true;
+    }
+    
+    /**
+     * Removes a listener.
+     * 
+     * @param l 
+     */
+    public static synchronized void removeListener(LifeStageEventListener l) {
+        listeners.remove(l);
+        enabled = !listeners.isEmpty();
+    }
+    
+    /**
+     * Returns true if there are listeners for events.
+     * 
+     * @return 
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Sends an event to all listeners.
+     * 
+     * @param e - the event
+     */
+    public static void fire(LifeStageEvent e) {
+        for (LifeStageEventListener l: listeners) l.lifeStageEvent(e);
+    }
+    
+    /**
+     * Sends an event without next stage or spawning information.
+     * 
+     * @param type   - event type
+     * @param lhs    - the individual
+     * @param time   - model time (s)
+     * @param number - number of individuals affected
+     * @param lat    - latitude
+     * @param lon    - longitude
+     * @param depth  - depth (m)
+     */
+    public static void fire(LifeStageEvent.Type type, LifeStageInterface lhs, double time, 
+                            double number, double lat, double lon, double depth) {
+        fire(new LifeStageEvent(type,lhs.getTypeName(),lhs.getID(),time,number,
+                                lat,lon,depth,null,0));
+    }
+    
+    /**
+     * Sends a TRANSITION event. The number transitioning is taken from the 
+     * new individual.
+     * 
+     * @param lhs   - the transitioning individual
+     * @param time  - model time (s)
+     * @param lat   - latitude
+     * @param lon   - longitude
+     * @param depth - depth (m)
+     * @param next  - the individual in the next stage
+     */
+    public static void fireTransition(LifeStageInterface lhs, double time, 
+                                      double lat, double lon, double depth, 
+                                      LifeStageInterface next) {
+        double n = next.getAttributes().getValue(LifeStageAttributesInterface.PROP_number,0.0);
+        fire(new LifeStageEvent(LifeStageEvent.Type.TRANSITION,lhs.getTypeName(),lhs.getID(),
+                                time,n,lat,lon,depth,next.getTypeName(),0));
+    }
+    
+    /**
+     * Sends a SPAWNING event.
+     * 
+     * @param lhs        - the spawning individual
+     * @param time       - model time (s)
+     * @param number     - number of spawners
+     * @param lat        - latitude
+     * @param lon        - longitude
+     * @param depth      - depth (m)
+     * @param numSpawned - number of spawned individuals created
+     */
+    public static void fireSpawning(LifeStageInterface lhs, double time, double number,
+                                    double lat, double lon, double depth, int numSpawned) {
+        fire(new LifeStageEvent(LifeStageEvent.Type.SPAWNING,lhs.getTypeName(),lhs.getID(),
+                                time,number,lat,lon,depth,null,numSpawned));
+    }
+}
@@ -0,0 +1,400 @@
+/*
+ * LineageStore.java
+ *
+ * Created on October 19, 2026.
+ *
+ */
+
+package wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import wts.models.DisMELS.framework.LifeStageAttributesInterface;
+import wts.models.DisMELS.framework.LifeStageInterface;
+
+/**
+ * In-run store of the lineage of all individuals (id, parentID, origID,
+ * current stage, birth time and fate), kept in primitive arrays indexed
+ * through an open-addressing id hash, so parent and origin lookups take
+ * constant time.
+ *
+ * Stages call recordStageEntry(...) on their first time step. A new id is
+ * added with its birth time; a known id (an individual that transitioned
+ * to a new stage) has its stage updated. Fates are taken from LifeStageEvents
+ * (grid and ROI exits and deaths from maximum stage duration or development
+ * stage). Running totals of the number entering each stage are kept for each
+ * origID, giving survival per spawning adult or per release.
+ *
+ * Recording is started by start(File) or by setting the system property
+ * PROP_lineageFile; the store is written to the file by stop() or at JVM
+ * shutdown. File layout (DataOutputStream):
+ * <pre>
+ *      MAGIC (int), VERSION (int), number of stages (int), stage names (UTF),
+ *      number of individuals n (int), then columns of length n:
+ *          id, parentID, origID (long), stage (byte), birth time (double),
+ *          fate (byte, FATE_*), fate time (double),
+ *      number of origins m (int), then origIDs (long[m]), then for each
+ *      origin the numbers entering each stage (double[number of stages])
+ * </pre>
+ *
+ * @author agent
+ */
+public class LineageStore {
+
+    /** system property giving the file to write the lineage to */
+    public static final String PROP_lineageFile =
+            "wts.models.DisMELS.IBMs.ArrowtoothFlounder.lineageFile";
+    /** file identifier */
+    public static final int MAGIC = 0x4154464C;
+    /** file format version */
+    public static final int VERSION = 1;
+
+    /** fate: still active (or fate not recorded) */
+    public static final byte FATE_ACTIVE      = 0;
+    /** fate: exited the grid */
+    public static final byte FATE_GRID_EXIT   = 1;
+    /** fate: left the region of interest */
+    public static final byte FATE_ROI_EXIT    = 2;
+    /** fate: exceeded maximum stage duration */
+    public static final byte FATE_MAX_DURATION = 3;
+    /** fate: exceeded maximum development stage */
+    public static final byte FATE_MAX_DEV_STAGE = 4;
+
+    /** maximum number of distinct stages */
+    private static final int MAX_STAGES = 16;
+
+    /** file to write to (null if not recording) */
+    private static volatile File file = null;
+    /** flag indicating PROP_lineageFile has been checked */
+    private static volatile boolean checkedProperty = false;
+
+    /** stage names, by stage index */
+    private static final List<String> stages = new ArrayList<>();
+    /** id to slot */
+    private static final LongIntHash mapIDs = new LongIntHash();
+    /** number of individuals */
+    private static int n = 0;
+    private static long[]   ids       = new long[0];
+    private static long[]   parents   = new long[0];
+    private static long[]   origs     = new long[0];
+    private static byte[]   stageIdx  = new byte[0];
+    private static double[] births    = new double[0];
+    private static byte[]   fates     = new byte[0];
+    private static double[] fateTimes = new double[0];
+    /** origID to origin slot */
+    private static final LongIntHash mapOrigs = new LongIntHash();
+    /** number of origins */
+    private static int nOrigs = 0;
+    private static long[] origIDs = new long[0];
+    /** numbers entering each stage, by origin slot*MAX_STAGES+stage */
+    private static double[] entered = new double[0];
+    /** flag indicating a stage beyond MAX_STAGES has been logged */
+    private static boolean loggedTooManyStages = false;
+
+    /** listener for fates */
+    private static final LifeStageEventListener listener = new LifeStageEventListener() {
+        @Override
+        public void lifeStageEvent(LifeStageEvent e) {
+            byte fate;
+            switch (e.type) {
+                case GRID_EXIT:          fate = FATE_GRID_EXIT; break;
+                case ROI_EXIT:           fate = FATE_ROI_EXIT; break;
+                case MAX_STAGE_DURATION: fate = FATE_MAX_DURATION; break;
+                case MAX_DEV_STAGE:      fate = FATE_MAX_DEV_STAGE; break;
+                default: return;
+            }
+            recordFate(e.id,fate,e.time);
+        }
+    };
+
+    private static final Logger logger = Logger.getLogger(LineageStore.class.getName());
+
+    private LineageStore(){}
+
+    /**
+     * Starts recording, clearing any lineage recorded so far.
+     *
+     * @param f - file the lineage will be written to by stop()
+     */
+    public static synchronized void start(File f) {
+        stages.clear();
+        mapIDs.clear();
+        mapOrigs.clear();
+        n = 0;
+        ids       = new long[0];
+        parents   = new long[0];
+        origs     = new long[0];
+        stageIdx  = new byte[0];
+        births    = new double[0];
+        fates     = new byte[0];
+        fateTimes = new double[0];
+        nOrigs = 0;
+        origIDs = new long[0];
+        entered = new double[0];//totals must not carry over from a previous recording
+        loggedTooManyStages = false;
+        file = f;
+        checkedProperty = true;
+        LifeStageEvents.addListener(listener);
+    }
+
+    /**
+     * Stops recording and writes the lineage to the file given to start(...).
+     */
+    public static synchronized void stop() {
+        if (file==null) return;
+        LifeStageEvents.removeListener(listener);
+        try {
+            write(file);
+        } catch (IOException ex) {
+            logger.log(Level.SEVERE,"Error writing lineage to "+file.getPath(),ex);
+        }
+        file = null;
+    }
+
+    /**
+     * Returns true if lineage is being recorded.
+     *
+     * @return
+     */
+    public static boolean isRecording() {
+        if (!checkedProperty) startFromProperty();
+        return file!=null;
+    }
+
+    private static synchronized void startFromProperty() {
+        if (checkedProperty) return;
+        checkedProperty = true;
+        String fn = System.getProperty(PROP_lineageFile);
+        if ((fn==null)||fn.isEmpty()) return;
+        start(new File(fn));
+        Runtime.getRuntime().addShutdownHook(new Thread(){
+            @Override
+            public void run() {
+                LineageStore.stop();
+            }
+        });
+    }
+
+    /**
+     * Records an individual entering its current stage: a new individual is
+     * added, a known one has its stage updated. The number entering the stage
+     * is added to the totals for the individual's origID. Individuals in a
+     * stage beyond the first MAX_STAGES stages are not recorded (this is
+     * logged once).
+     *
+     * @param lhs    - the individual
+     * @param time   - model time (s)
+     * @param number - number of individuals represented
+     * @return - true if the individual has been handled (recorded or skipped), 
+     *           false if lineage is not being recorded
+     */
+    public static synchronized boolean recordStageEntry(LifeStageInterface lhs, double time, double number) {
+        if (file==null) return false;
+        int s = stages.indexOf(lhs.getTypeName());
+        if (s<0) {
+            if (stages.size()==MAX_STAGES) {
+                if (!loggedTooManyStages) {
+                    loggedTooManyStages = true;
+                    logger.warning("More than "+MAX_STAGES+" stages: "+lhs.getTypeName()+
+                                   " (and any later stages) will not be recorded in the lineage.");
+                }
+                return true;//handled: do not retry on every step
+            }
+            s = stages.size();
+            stages.add(lhs.getTypeName());
+        }
+        long id = lhs.getID();
+        LifeStageAttributesInterface atts = lhs.getAttributes();
+        long orig = atts.getValue(LifeStageAttributesInterface.PROP_origID,id);
+        int slot = mapIDs.get(id);
+        if (slot<0) {
+            if (n==ids.length) grow();
+            slot = n++;
+            mapIDs.put(id,slot);
+            ids[slot]       = id;
+            parents[slot]   = atts.getValue(LifeStageAttributesInterface.PROP_parentID,-1L);
+            origs[slot]     = orig;
+            births[slot]    = time;
+            fates[slot]     = FATE_ACTIVE;
+            fateTimes[slot] = Double.NaN;
+        }
+        stageIdx[slot] = (byte) s;
+        int o = mapOrigs.get(orig);
+        if (o<0) {
+            if (nOrigs==origIDs.length) {
+                int m = Math.max(1024,2*nOrigs);
+                origIDs = Arrays.copyOf(origIDs,m);
+                entered = Arrays.copyOf(entered,m*MAX_STAGES);
+            }
+            o = nOrigs++;
+            mapOrigs.put(orig,o);
+            origIDs[o] = orig;
+        }
+        entered[o*MAX_STAGES+s] += number;
+        return true;
+    }
+
+    /**
+     * Records the fate of an individual.
+     *
+     * @param id   - individual's id
+     * @param fate - FATE_* constant
+     * @param time - model time (s)
+     */
+    public static synchronized void recordFate(long id, byte fate, double time) {
+        int slot = mapIDs.get(id);
+        if (slot<0) return;
+        fates[slot] = fate;
+        fateTimes[slot] = time;
+    }
+
+    /**
+     * Gets the parentID of an individual.
+     *
+     * @param id - individual's id
+     * @return - the parentID (or -1 if the id is not known)
+     */
+    public static synchronized long getParentID(long id) {
+        int slot = mapIDs.get(id);
+        return (slot<0) ? -1 : parents[slot];
+    }
+
+    /**
+     * Gets the origID of an individual.
+     *
+     * @param id - individual's id
+     * @return - the origID (or -1 if the id is not known)
+     */
+    public static synchronized long getOrigID(long id) {
+        int slot = mapIDs.get(id);
+        return (slot<0) ? -1 : origs[slot];
+    }
+
+    /**
+     * Gets the ancestors of an individual (parent first).
+     *
+     * @param id - individual's id
+     * @return - ids of known ancestors
+     */
+    public static synchronized long[] getAncestors(long id) {
+        long[] res = new long[8];
+        int k = 0;
+        int slot = mapIDs.get(id);
+        while ((slot>=0)&&(k<n)) {
+            long p = parents[slot];
+            if ((p<0)||(p==ids[slot])) break;
+            if (k==res.length) res = Arrays.copyOf(res,2*k);
+            res[k++] = p;
+            slot = mapIDs.get(p);
+        }
+        return Arrays.copyOf(res,k);
+    }
+
+    /**
+     * Gets the number that entered a stage for an origin.
+     *
+     * @param origID - the origID
+     * @param stage  - stage type name
+     * @return
+     */
+    public static synchronized double getNumberEntered(long origID, String stage) {
+        int o = mapOrigs.get(origID);
+        int s = stages.indexOf(stage);
+        return ((o<0)||(s<0)) ? 0.0 : entered[o*MAX_STAGES+s];
+    }
+
+    private static void grow() {
+        int m = Math.max(1024,2*n);
+        ids       = Arrays.copyOf(ids,m);
+        parents   = Arrays.copyOf(parents,m);
+        origs     = Arrays.copyOf(origs,m);
+        stageIdx  = Arrays.copyOf(stageIdx,m);
+        births    = Arrays.copyOf(births,m);
+        fates     = Arrays.copyOf(fates,m);
+        fateTimes = Arrays.copyOf(fateTimes,m);
+    }
+
+    private static void write(File f) throws IOException {
+        try (DataOutputStream dos = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(f),1<<16))) {
+            dos.writeInt(MAGIC);
+            dos.writeInt(VERSION);
+            dos.writeInt(stages.size());
+            for (String s: stages) dos.writeUTF(s);
+            dos.writeInt(n);
+            for (int i=0;i<n;i++) dos.writeLong(ids[i]);
+            for (int i=0;i<n;i++) dos.writeLong(parents[i]);
+            for (int i=0;i<n;i++) dos.writeLong(origs[i]);
+            dos.write(stageIdx,0,n);
+            for (int i=0;i<n;i++) dos.writeDouble(births[i]);
+            dos.write(fates,0,n);
+            for (int i=0;i<n;i++) dos.writeDouble(fateTimes[i]);
+            dos.writeInt(nOrigs);
+            for (int o=0;o<nOrigs;o++) dos.writeLong(origIDs[o]);
+            for (int o=0;o<nOrigs;o++) {
+                for (int s=0;s<stages.size();s++) dos.writeDouble(entered[o*MAX_STAGES+s]);
+            }
+        }
+        logger.info("Wrote lineage of "+n+" individuals ("+nOrigs+" origins) to "+f.getPath());
+    }
+
+    /**
+     * Open-addressing hash from long keys to non-negative int values.
+     */
+    private static final class LongIntHash {
+        private long[] keys = new long[1024];
+        private int[] vals  = new int[1024];
+        private boolean[] used = new boolean[1024];
+        private int size = 0;
+
+        int get(long key) {
+            int mask = keys.length-1;
+            for (int i=mix(key)&mask;used[i];i=(i+1)&mask) {
+                if (keys[i]==key) return vals[i];
+            }
+            return -1;
+        }
+
+        void put(long key, int val) {
+            if (2*(size+1)>keys.length) rehash(2*keys.length);
+            int mask = keys.length-1;
+            int i = mix(key)&mask;
+            while (used[i]&&(keys[i]!=key)) i = (i+1)&mask;
+            if (!used[i]) size++;
+            used[i] = true;
+            keys[i] = key;
+            vals[i] = val;
+        }
+
+        void clear() {
+            keys = new long[1024];
+            vals = new int[1024];
+            used = new boolean[1024];
+            size = 0;
+        }
+
+        private void rehash(int cap) {
+            long[] ok = keys;
+            int[] ov = vals;
+            boolean[] ou = used;
+            keys = new long[cap];
+            vals = new int[cap];
+            used = new boolean[cap];
+            size = 0;
+            for (int i=0;i<ok.length;i++) if (ou[i]) put(ok[i],ov[i]);
+        }
+
+        private static int mix(long key) {
+            long h = key*0x9E3779B97F4A7C15L;
+            return (int)(h^(h>>>32));
+        }
+    }
+}
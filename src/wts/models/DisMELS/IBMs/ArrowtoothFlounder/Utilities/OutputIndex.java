@@ -0,0 +1,481 @@
+/*
+ * OutputIndex.java
+ *
+ * Created on October 19, 2026.
+ *
+ */
+
+package wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+import wts.models.DisMELS.framework.LHS_Factory;
+import wts.models.DisMELS.framework.LifeStageAttributesInterface;
+
+/**
+ * Index over a CSV output file written from the stages' getReport(), for
+ * fast queries by id, origID, stage and time.
+ *
+ * The index is kept in a sidecar file (the output file name + ".idx") that
+ * is built by scanning the output file once and rebuilt when the output file
+ * changes. Both the index and the output file are memory-mapped (in
+ * segments, so neither is limited to 2 GB), so queries are binary searches
+ * over the mapped index and reading a record only touches the pages holding
+ * it.
+ *
+ * Records are located by the leading attribute columns common to all stages:
+ * typeName, id, parentID, origID, startTime, time. Lines that do not have a
+ * numeric id (e.g., header lines) are skipped.
+ *
+ * Usage:
+ * <pre>
+ *      OutputIndex idx = OutputIndex.open(new File("Results.csv"));
+ *      for (int r: idx.findByOrigID(1234)) System.out.println(idx.getLine(r));
+ *      int[] larvae = idx.findByStageAndTime("Larva",t0,t1);
+ *      LifeStageAttributesInterface atts = idx.getAttributes(larvae[0]);
+ *      idx.close();
+ * </pre>
+ *
+ * @author agent
+ */
+public class OutputIndex implements AutoCloseable {
+
+    /** index file identifier */
+    public static final int MAGIC = 0x41544649;
+    /** index file format version */
+    public static final int VERSION = 1;
+    /** suffix for the index file */
+    public static final String SUFFIX = ".idx";
+
+    /** column of the id in the output */
+    private static final int COL_ID = 1;
+    /** column of the origID in the output */
+    private static final int COL_ORIGID = 3;
+    /** column of the time in the output */
+    private static final int COL_TIME = 5;
+    /** size of the mapped segments of the output file */
+    private static final long SEGMENT = 1L<<30;
+    /** overlap between mapped segments (longest line read from a single segment) */
+    private static final long OVERLAP = 1L<<24;
+    /** log2 of the number of records in each mapped segment of an index column */
+    private static final int REC_BITS = 26;
+    /** mask giving a record's position within its index column segment */
+    private static final int REC_MASK = (1<<REC_BITS)-1;
+
+    private static final Logger logger = Logger.getLogger(OutputIndex.class.getName());
+
+    /** stage type names, by stage index */
+    private final String[] stages;
+    /** number of records */
+    private final int n;
+    /** open files (index, output) */
+    private final RandomAccessFile rafIdx, rafOut;
+    /** mapped output file segments */
+    private final MappedByteBuffer[] segments;
+    /** mapped index columns (in segments of 2^REC_BITS records) */
+    private final LongBuffer[] offsets, ids, origIDs;
+    private final IntBuffer[] lengths, stageIdx, byID, byOrig, byTime;
+    private final DoubleBuffer[] times;
+
+    /**
+     * Opens the index for an output file, building it if it does not exist
+     * or is out of date.
+     *
+     * @param file - the CSV output file
+     * @return
+     * @throws IOException
+     */
+    public static OutputIndex open(File file) throws IOException {
+        File fIdx = new File(file.getPath()+SUFFIX);
+        if (!isCurrent(file,fIdx)) build(file,fIdx);
+        return new OutputIndex(file,fIdx);
+    }
+
+    private OutputIndex(File file, File fIdx) throws IOException {
+        rafIdx = new RandomAccessFile(fIdx,"r");
+        rafOut = new RandomAccessFile(file,"r");
+        rafIdx.seek(24);//skip MAGIC, VERSION, output length and modification time
+        stages = new String[rafIdx.readInt()];
+        for (int s=0;s<stages.length;s++) {
+            byte[] b = new byte[rafIdx.readInt()];
+            rafIdx.readFully(b);
+            stages[s] = new String(b,ColumnarAttributesWriter.UTF8);
+        }
+        n = rafIdx.readInt();
+        long pos = rafIdx.getFilePointer();
+        ByteBuffer[] bb;
+        bb = section(pos,8); pos += 8L*n;
+        offsets = new LongBuffer[bb.length];
+        for (int s=0;s<bb.length;s++) offsets[s] = bb[s].asLongBuffer();
+        bb = section(pos,4); pos += 4L*n;
+        lengths = new IntBuffer[bb.length];
+        for (int s=0;s<bb.length;s++) lengths[s] = bb[s].asIntBuffer();
+        bb = section(pos,8); pos += 8L*n;
+        ids = new LongBuffer[bb.length];
+        for (int s=0;s<bb.length;s++) ids[s] = bb[s].asLongBuffer();
+        bb = section(pos,8); pos += 8L*n;
+        origIDs = new LongBuffer[bb.length];
+        for (int s=0;s<bb.length;s++) origIDs[s] = bb[s].asLongBuffer();
+        bb = section(pos,8); pos += 8L*n;
+        times = new DoubleBuffer[bb.length];
+        for (int s=0;s<bb.length;s++) times[s] = bb[s].asDoubleBuffer();
+        bb = section(pos,4); pos += 4L*n;
+        stageIdx = new IntBuffer[bb.length];
+        for (int s=0;s<bb.length;s++) stageIdx[s] = bb[s].asIntBuffer();
+        bb = section(pos,4); pos += 4L*n;
+        byID = new IntBuffer[bb.length];
+        for (int s=0;s<bb.length;s++) byID[s] = bb[s].asIntBuffer();
+        bb = section(pos,4); pos += 4L*n;
+        byOrig = new IntBuffer[bb.length];
+        for (int s=0;s<bb.length;s++) byOrig[s] = bb[s].asIntBuffer();
+        bb = section(pos,4);
+        byTime = new IntBuffer[bb.length];
+        for (int s=0;s<bb.length;s++) byTime[s] = bb[s].asIntBuffer();
+        long len = rafOut.length();
+        segments = new MappedByteBuffer[(int)((len+SEGMENT-1)/SEGMENT)];
+        for (int s=0;s<segments.length;s++) {
+            long start = s*SEGMENT;
+            segments[s] = rafOut.getChannel().map(FileChannel.MapMode.READ_ONLY,start,
+                                                  Math.min(len-start,SEGMENT+OVERLAP));
+        }
+    }
+
+    /**
+     * Maps an index column in segments of 2^REC_BITS records.
+     *
+     * @param start - position of the column in the index file
+     * @param width - bytes per record
+     * @return
+     * @throws IOException
+     */
+    private ByteBuffer[] section(long start, int width) throws IOException {
+        ByteBuffer[] bb = new ByteBuffer[Math.max(1,(int)((n+(long)REC_MASK)>>>REC_BITS))];
+        for (int s=0;s<bb.length;s++) {
+            long first = ((long) s)<<REC_BITS;
+            long count = Math.min((long) n-first,1L<<REC_BITS);
+            bb[s] = rafIdx.getChannel().map(FileChannel.MapMode.READ_ONLY,start+first*width,count*width);
+        }
+        return bb;
+    }
+
+    private static long get(LongBuffer[] col, int rec) {
+        return col[rec>>>REC_BITS].get(rec&REC_MASK);
+    }
+
+    private static int get(IntBuffer[] col, int rec) {
+        return col[rec>>>REC_BITS].get(rec&REC_MASK);
+    }
+
+    private static double get(DoubleBuffer[] col, int rec) {
+        return col[rec>>>REC_BITS].get(rec&REC_MASK);
+    }
+
+    /**
+     * Gets the number of indexed records.
+     *
+     * @return
+     */
+    public int size() {
+        return n;
+    }
+
+    /**
+     * Gets the stage type names found in the output.
+     *
+     * @return
+     */
+    public String[] getStageNames() {
+        return stages.clone();
+    }
+
+    /** Gets the id of a record. */
+    public long getID(int rec) {
+        return get(ids,rec);
+    }
+
+    /** Gets the origID of a record. */
+    public long getOrigID(int rec) {
+        return get(origIDs,rec);
+    }
+
+    /** Gets the time of a record. */
+    public double getTime(int rec) {
+        return get(times,rec);
+    }
+
+    /** Gets the stage type name of a record. */
+    public String getStageName(int rec) {
+        return stages[get(stageIdx,rec)];
+    }
+
+    /**
+     * Finds all records for an individual, in output order.
+     *
+     * @param id - the individual's id
+     * @return - record numbers
+     */
+    public int[] findByID(long id) {
+        return findLong(byID,ids,id);
+    }
+
+    /**
+     * Finds all records with the given origID, in output order.
+     *
+     * @param origID - the origID
+     * @return - record numbers
+     */
+    public int[] findByOrigID(long origID) {
+        return findLong(byOrig,origIDs,origID);
+    }
+
+    /**
+     * Finds all records for a stage with t0 &lt;= time &lt;= t1, in time order.
+     *
+     * @param stage - stage type name (null for all stages)
+     * @param t0    - start time
+     * @param t1    - end time
+     * @return - record numbers
+     */
+    public int[] findByStageAndTime(String stage, double t0, double t1) {
+        int s = (stage==null) ? -1 : Arrays.asList(stages).indexOf(stage);
+        if ((stage!=null)&&(s<0)) return new int[0];
+        int lo = 0, hi = n;
+        while (lo<hi) {//first record with time >= t0
+            int mid = (lo+hi)>>>1;
+            if (get(times,get(byTime,mid))<t0) lo = mid+1; else hi = mid;
+        }
+        int[] res = new int[16];
+        int k = 0;
+        for (int i=lo;(i<n)&&(get(times,get(byTime,i))<=t1);i++) {
+            int rec = get(byTime,i);
+            if ((s<0)||(get(stageIdx,rec)==s)) {
+                if (k==res.length) res = Arrays.copyOf(res,2*k);
+                res[k++] = rec;
+            }
+        }
+        return Arrays.copyOf(res,k);
+    }
+
+    private int[] findLong(IntBuffer[] perm, LongBuffer[] keys, long key) {
+        int lo = 0, hi = n;
+        while (lo<hi) {
+            int mid = (lo+hi)>>>1;
+            if (get(keys,get(perm,mid))<key) lo = mid+1; else hi = mid;
+        }
+        int end = lo;
+        while ((end<n)&&(get(keys,get(perm,end))==key)) end++;
+        int[] res = new int[end-lo];
+        for (int i=lo;i<end;i++) res[i-lo] = get(perm,i);
+        return res;
+    }
+
+    /**
+     * Gets the output line for a record.
+     *
+     * @param rec - record number
+     * @return
+     * @throws IOException
+     */
+    public String getLine(int rec) throws IOException {
+        long off = get(offsets,rec);
+        int len  = get(lengths,rec);
+        byte[] b = new byte[len];
+        int s = (int)(off/SEGMENT);
+        long rel = off-s*SEGMENT;
+        if (rel+len<=segments[s].capacity()) {
+            ByteBuffer bb = segments[s].duplicate();
+            bb.position((int) rel);
+            bb.get(b);
+        } else {
+            //line longer than the segment overlap
+            ByteBuffer bb = ByteBuffer.wrap(b);
+            while (bb.hasRemaining()) {
+                if (rafOut.getChannel().read(bb,off+bb.position())<0) break;
+            }
+        }
+        return new String(b,ColumnarAttributesWriter.UTF8);
+    }
+
+    /**
+     * Gets the attributes for a record, created via LHS_Factory.createAttributes
+     * (i.e., the stage attributes class' createInstance(String[])).
+     *
+     * @param rec - record number
+     * @return
+     * @throws IOException
+     */
+    public LifeStageAttributesInterface getAttributes(int rec) throws IOException {
+        return LHS_Factory.createAttributes(getLine(rec).split(","));
+    }
+
+    @Override
+    public void close() throws IOException {
+        rafIdx.close();
+        rafOut.close();
+    }
+
+    /**
+     * Returns true if the index file exists and matches the output file.
+     */
+    private static boolean isCurrent(File file, File fIdx) throws IOException {
+        if (!fIdx.exists()) return false;
+        try (RandomAccessFile raf = new RandomAccessFile(fIdx,"r")) {
+            if (raf.length()<24) return false;
+            return (raf.readInt()==MAGIC)&&(raf.readInt()==VERSION)&&
+                   (raf.readLong()==file.length())&&(raf.readLong()==file.lastModified());
+        }
+    }
+
+    /**
+     * Builds the index file for an output file.
+     *
+     * @param file - the CSV output file
+     * @param fIdx - the index file
+     * @throws IOException
+     */
+    public static void build(File file, File fIdx) throws IOException {
+        List<String> lstStages = new ArrayList<>();
+        long[] offs = new long[1024];
+        int[] lens  = new int[1024];
+        long[] idv  = new long[1024];
+        long[] orig = new long[1024];
+        double[] tv = new double[1024];
+        int[] sv    = new int[1024];
+        int nRec = 0;
+        String[] fields = new String[COL_TIME+1];
+        StringBuilder sb = new StringBuilder();
+        try (InputStream is = new BufferedInputStream(new FileInputStream(file),1<<20)) {
+            long pos = 0, lineStart = 0;
+            int col = 0;
+            int c = -1, prev;
+            while (true) {
+                prev = c;
+                c = is.read();
+                if ((c=='\n')||(c<0)) {
+                    if (col<=COL_TIME) fields[col] = sb.toString();
+                    int len = (int)(pos-lineStart);
+                    if ((col>=COL_TIME)&&(len>0)) {
+                        try {
+                            long id = Long.parseLong(fields[COL_ID].trim());
+                            long oid = Long.parseLong(fields[COL_ORIGID].trim());
+                            double t = Double.parseDouble(fields[COL_TIME].trim());
+                            String stage = fields[0].trim();
+                            int s = lstStages.indexOf(stage);
+                            if (s<0) {
+                                s = lstStages.size();
+                                lstStages.add(stage);
+                            }
+                            if (nRec==offs.length) {
+                                int m = 2*nRec;
+                                offs = Arrays.copyOf(offs,m);
+                                lens = Arrays.copyOf(lens,m);
+                                idv  = Arrays.copyOf(idv,m);
+                                orig = Arrays.copyOf(orig,m);
+                                tv   = Arrays.copyOf(tv,m);
+                                sv   = Arrays.copyOf(sv,m);
+                            }
+                            offs[nRec] = lineStart;
+                            lens[nRec] = (prev=='\r') ? len-1 : len;//drop Windows line end
+                            idv[nRec]  = id;
+                            orig[nRec] = oid;
+                            tv[nRec]   = t;
+                            sv[nRec]   = s;
+                            nRec++;
+                        } catch (NumberFormatException ex) {
+                            //header or malformed line: skip
+                        }
+                    }
+                    if (c<0) break;
+                    pos++;
+                    lineStart = pos;
+                    col = 0;
+                    sb.setLength(0);
+                    continue;
+                }
+                pos++;
+                if (col<=COL_TIME) {
+                    if (c==',') {
+                        fields[col++] = sb.toString();
+                        sb.setLength(0);
+                    } else {
+                        sb.append((char) c);//leading columns are ASCII
+                    }
+                }
+            }
+        }
+        int[] pID   = sortedOrder(idv,nRec);
+        int[] pOrig = sortedOrder(orig,nRec);
+        long[] tkeys = new long[nRec];
+        for (int r=0;r<nRec;r++) {
+            long b = Double.doubleToLongBits(tv[r]);
+            tkeys[r] = b^((b>>63)&0x7fffffffffffffffL);//signed order matches double order
+        }
+        int[] pTime = sortedOrder(tkeys,nRec);
+        try (DataOutputStream dos = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(fIdx),1<<20))) {
+            dos.writeInt(MAGIC);
+            dos.writeInt(VERSION);
+            dos.writeLong(file.length());
+            dos.writeLong(file.lastModified());
+            dos.writeInt(lstStages.size());
+            for (String s: lstStages) {
+                byte[] b = s.getBytes(ColumnarAttributesWriter.UTF8);
+                dos.writeInt(b.length);
+                dos.write(b);
+            }
+            dos.writeInt(nRec);
+            for (int r=0;r<nRec;r++) dos.writeLong(offs[r]);
+            for (int r=0;r<nRec;r++) dos.writeInt(lens[r]);
+            for (int r=0;r<nRec;r++) dos.writeLong(idv[r]);
+            for (int r=0;r<nRec;r++) dos.writeLong(orig[r]);
+            for (int r=0;r<nRec;r++) dos.writeDouble(tv[r]);
+            for (int r=0;r<nRec;r++) dos.writeInt(sv[r]);
+            for (int r=0;r<nRec;r++) dos.writeInt(pID[r]);
+            for (int r=0;r<nRec;r++) dos.writeInt(pOrig[r]);
+            for (int r=0;r<nRec;r++) dos.writeInt(pTime[r]);
+        }
+        logger.info("Indexed "+nRec+" records in "+file.getPath());
+    }
+
+    /**
+     * Gets the record order sorted by key, with ties kept in record order.
+     */
+    private static int[] sortedOrder(long[] keys, int nRec) {
+        int[] idx = new int[nRec];
+        for (int r=0;r<nRec;r++) idx[r] = r;
+        int[] tmp = new int[nRec];
+        mergeSort(idx,tmp,keys,0,nRec);
+        return idx;
+    }
+
+    private static void mergeSort(int[] idx, int[] tmp, long[] keys, int lo, int hi) {
+        if (hi-lo<2) return;
+        int mid = (lo+hi)>>>1;
+        mergeSort(idx,tmp,keys,lo,mid);
+        mergeSort(idx,tmp,keys,mid,hi);
+        if (keys[idx[mid-1]]<=keys[idx[mid]]) return;//already in order
+        System.arraycopy(idx,lo,tmp,lo,hi-lo);
+        int i = lo, j = mid;
+        for (int k=lo;k<hi;k++) {
+            if ((j>=hi)||((i<mid)&&(keys[tmp[i]]<=keys[tmp[j]]))) idx[k] = tmp[i++];
+            else idx[k] = tmp[j++];
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * ParallelGzipOutputStream.java
+ *
+ * Created on October 19, 2026.
+ *
+ */
+
+package wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Output stream that gzip-compresses blocks of data in parallel on worker 
+ * threads. Each block is written as a complete gzip member, in order, so 
+ * the result is a concatenated gzip file readable by gzip/zcat and by 
+ * java.util.zip.GZIPInputStream.
+ * 
+ * Writing is not thread-safe; one thread should write to each stream. 
+ * Calling flush() ends the current block early, so it should be called
+ * sparingly.
+ * 
+ * @author agent
+ */
+public class ParallelGzipOutputStream extends OutputStream {
+    
+    /** default block size (bytes) */
+    public static final int DEFAULT_BLOCK_SIZE = 1<<20;
+    
+    /** shared pool of compression threads */
+    private static final ExecutorService pool = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(),
+            new ThreadFactory(){
+                private int n = 0;
+                @Override
+                public synchronized Thread newThread(Runnable r) {
+                    Thread t = new Thread(r,"ParallelGzip-"+(n++));
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+    
+    /** underlying stream */
+    private final OutputStream out;
+    /** block size */
+    private final int blockSize;
+    /** maximum number of blocks being compressed at once */
+    private final int maxPending;
+    /** blocks being compressed, in output order */
+    private final ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+    /** current block */
+    private byte[] buf;
+    /** number of bytes in the current block */
+    private int count = 0;
+    /** flag indicating the stream is closed */
+    private boolean closed = false;
+    
+    /**
+     * Creates a stream using DEFAULT_BLOCK_SIZE.
+     * 
+     * @param out - underlying stream
+     */
+    public ParallelGzipOutputStream(OutputStream out) {
+        this(out,DEFAULT_BLOCK_SIZE);
+    }
+    
+    /**
+     * Creates a stream.
+     * 
+     * @param out       - underlying stream
+     * @param blockSize - bytes per compressed block
+     */
+    public ParallelGzipOutputStream(OutputStream out, int blockSize) {
+        this.out = out;
+        this.blockSize = Math.max(4096,blockSize);
+        maxPending = 2*Runtime.getRuntime().availableProcessors();
+        buf = new byte[this.blockSize];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        buf[count++] = (byte) b;
+        if (count==blockSize) submitBlock();
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        while (len>0) {
+            int n = Math.min(len,blockSize-count);
+            System.arraycopy(b,off,buf,count,n);
+            count += n;
+            off += n;
+            len -= n;
+            if (count==blockSize) submitBlock();
+        }
+    }
+
+    /**
+     * Compresses and writes all buffered data, then flushes the underlying stream.
+     * 
+     * @throws IOException 
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        if (count>0) submitBlock();
+        while (!pending.isEmpty()) writeNext();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        try {
+            flush();
+        } finally {
+            closed = true;
+            out.close();
+        }
+    }
+    
+    private void ensureOpen() throws IOException {
+        if (closed) throw new IOException("Stream closed");
+    }
+    
+    private void submitBlock() throws IOException {
+        final byte[] block = buf;
+        final int len = count;
+        buf = new byte[blockSize];
+        count = 0;
+        pending.add(pool.submit(new Callable<byte[]>(){
+            @Override
+            public byte[] call() throws IOException {
+                ByteArrayOutputStream bos = new ByteArrayOutputStream(len/4+64);
+                try (GZIPOutputStream gz = new GZIPOutputStream(bos,8192)) {
+                    gz.write(block,0,len);
+                }
+                return bos.toByteArray();
+            }
+        }));
+        while (pending.size()>maxPending) writeNext();
+    }
+    
+    private void writeNext() throws IOException {
+        try {
+            out.write(pending.poll().get());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while compressing output",ex);
+        } catch (ExecutionException ex) {
+            throw new IOException("Error compressing output",ex.getCause());
+        }
+    }
+}
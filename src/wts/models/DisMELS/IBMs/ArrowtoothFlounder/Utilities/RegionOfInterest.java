@@ -0,0 +1,293 @@
+/*
+ * RegionOfInterest.java
+ *
+ * Created on October 19, 2026.
+ *
+ */
+
+package wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import wts.roms.model.Interpolator3D;
+
+/**
+ * Region of interest (ROI) used to stop tracking individuals that leave the
+ * study area. The ROI is defined either by a polygon in lon/lat or by a mask
+ * on the model grid, and is rasterized to grid cells (identified as in
+ * gridCellID, by the rounded I and J of the individual's position).
+ *
+ * A polygon is rasterized lazily: the first time a grid cell is checked, the
+ * lat/lon of the cell center is tested against the polygon and the result is
+ * stored, so each later check is a single array lookup. Longitudes may be
+ * given in either -180 to 180 or 0 to 360 convention, and the polygon may
+ * cross the 180 degree meridian: consecutive vertices are taken to be less
+ * than 180 degrees apart, and points are compared in the same range as the
+ * polygon.
+ *
+ * The ROI is set by calling setPolygon(...) or setMask(...), or by setting
+ * one of the system properties
+ *      PROP_polygonFile - text file with one "lon, lat" vertex per line
+ *      PROP_maskFile    - text file with one line per J (starting at 0),
+ *                         each with one value per I (starting at 0);
+ *                         non-zero values are inside the ROI
+ * Setting PROP_logExits to "true" logs the final state of each individual
+ * that leaves the ROI.
+ *
+ * If no ROI is set, all positions are inside it.
+ *
+ * @author agent
+ */
+public class RegionOfInterest {
+
+    /** system property giving a polygon file defining the ROI */
+    public static final String PROP_polygonFile =
+            "wts.models.DisMELS.IBMs.ArrowtoothFlounder.roiPolygonFile";
+    /** system property giving a grid mask file defining the ROI */
+    public static final String PROP_maskFile =
+            "wts.models.DisMELS.IBMs.ArrowtoothFlounder.roiMaskFile";
+    /** system property to log the final state of individuals leaving the ROI */
+    public static final String PROP_logExits =
+            "wts.models.DisMELS.IBMs.ArrowtoothFlounder.roiLogExits";
+
+    /** mask value for a cell that has not been checked */
+    private static final byte UNKNOWN = 0;
+    /** mask value for a cell inside the ROI */
+    private static final byte INSIDE  = 1;
+    /** mask value for a cell outside the ROI */
+    private static final byte OUTSIDE = 2;
+
+    /** flag indicating an ROI has been set */
+    private static volatile boolean isSet = false;
+    /** flag indicating the system properties have been checked */
+    private static volatile boolean checkedProperties = false;
+    /** flag to log the final state of individuals leaving the ROI */
+    private static volatile boolean logExits = false;
+    /** polygon longitudes (null if the ROI is given by a mask) */
+    private static double[] polyLons = null;
+    /** polygon latitudes (null if the ROI is given by a mask) */
+    private static double[] polyLats = null;
+    /** longitude at the middle of the polygon's (unwrapped) longitude range */
+    private static double polyLonMid = 0.0;
+    /** rasterized ROI, indexed as [j][i] */
+    private static volatile byte[][] mask = new byte[0][];
+
+    private static final Logger logger = Logger.getLogger(RegionOfInterest.class.getName());
+
+    private RegionOfInterest(){}
+
+    /**
+     * Sets the ROI to the polygon with the given vertices. The polygon is
+     * closed automatically.
+     *
+     * @param lons - vertex longitudes
+     * @param lats - vertex latitudes
+     */
+    public static synchronized void setPolygon(double[] lons, double[] lats) {
+        if ((lons.length!=lats.length)||(lons.length<3)) {
+            throw new IllegalArgumentException("ROI polygon needs at least 3 lon/lat vertices.");
+        }
+        polyLons = lons.clone();
+        polyLats = lats.clone();
+        //unwrap the vertex longitudes so consecutive vertices are less than 180 degrees apart
+        double min = polyLons[0], max = polyLons[0];
+        for (int v=1;v<polyLons.length;v++) {
+            polyLons[v] = polyLons[v-1]+wrap180(polyLons[v]-polyLons[v-1]);
+            min = Math.min(min,polyLons[v]);
+            max = Math.max(max,polyLons[v]);
+        }
+        polyLonMid = 0.5*(min+max);
+        mask = new byte[0][];
+        isSet = true;
+        checkedProperties = true;
+    }
+
+    /**
+     * Sets the ROI to the given grid mask.
+     *
+     * @param inside - mask indexed as [j][i], true inside the ROI
+     */
+    public static synchronized void setMask(boolean[][] inside) {
+        byte[][] m = new byte[inside.length][];
+        for (int j=0;j<inside.length;j++) {
+            m[j] = new byte[inside[j].length];
+            for (int i=0;i<inside[j].length;i++) m[j][i] = inside[j][i] ? INSIDE : OUTSIDE;
+        }
+        polyLons = null;
+        polyLats = null;
+        mask = m;
+        isSet = true;
+        checkedProperties = true;
+    }
+
+    /**
+     * Removes the ROI.
+     */
+    public static synchronized void clear() {
+        polyLons = null;
+        polyLats = null;
+        mask = new byte[0][];
+        isSet = false;
+        checkedProperties = true;
+    }
+
+    /**
+     * Sets whether the final state of individuals leaving the ROI is logged.
+     *
+     * @param b
+     */
+    public static void setLogExits(boolean b) {
+        logExits = b;
+    }
+
+    /**
+     * Returns true if the final state of individuals leaving the ROI should
+     * be logged.
+     *
+     * @return
+     */
+    public static boolean getLogExits() {
+        return logExits;
+    }
+
+    /**
+     * Tests whether the given position is outside the ROI.
+     *
+     * @param i3d - the interpolator (used to rasterize a polygon)
+     * @param pos - position as IJK
+     * @return - true if an ROI is set and pos is outside it
+     */
+    public static boolean isOutside(Interpolator3D i3d, double[] pos) {
+        if (!checkedProperties) setFromProperties();
+        if (!isSet) return false;
+        int i = (int) Math.round(pos[0]);
+        int j = (int) Math.round(pos[1]);
+        if ((i<0)||(j<0)) return true;
+        byte[][] m = mask;
+        byte v = UNKNOWN;
+        if ((j<m.length)&&(m[j]!=null)&&(i<m[j].length)) v = m[j][i];
+        if (v==UNKNOWN) v = rasterize(i3d,i,j,pos[2]);
+        return v==OUTSIDE;
+    }
+
+    /**
+     * Rasterizes the ROI for grid cell (i,j), growing the mask if necessary.
+     */
+    private static synchronized byte rasterize(Interpolator3D i3d, int i, int j, double k) {
+        if (polyLons==null) return OUTSIDE;//beyond the extent of a mask
+        byte[][] m = mask;
+        if (j>=m.length) {
+            byte[][] n = new byte[j+1][];
+            System.arraycopy(m,0,n,0,m.length);
+            m = n;
+        }
+        if ((m[j]==null)||(i>=m[j].length)) {
+            byte[] r = new byte[i+1];
+            if (m[j]!=null) System.arraycopy(m[j],0,r,0,m[j].length);
+            m[j] = r;
+        }
+        double[] ctr = new double[]{i,j,k};
+        byte v = contains(i3d.interpolateLon(ctr),i3d.interpolateLat(ctr)) ? INSIDE : OUTSIDE;
+        m[j][i] = v;
+        mask = m;
+        return v;
+    }
+
+    /**
+     * Tests whether the polygon contains the given point (ray casting).
+     */
+    private static boolean contains(double lon, double lat) {
+        lon = polyLonMid+wrap180(lon-polyLonMid);//same longitude range as the polygon
+        boolean in = false;
+        int n = polyLons.length;
+        for (int a=0,b=n-1;a<n;b=a++) {
+            if (((polyLats[a]>lat)!=(polyLats[b]>lat))&&
+                    (lon<(polyLons[b]-polyLons[a])*(lat-polyLats[a])/(polyLats[b]-polyLats[a])+polyLons[a])) {
+                in = !in;
+            }
+        }
+        return in;
+    }
+
+    /**
+     * Wraps a longitude difference to the range [-180,180).
+     */
+    private static double wrap180(double d) {
+        return d-360.0*Math.floor((d+180.0)/360.0);
+    }
+
+    private static synchronized void setFromProperties() {
+        if (checkedProperties) return;
+        checkedProperties = true;
+        logExits = Boolean.getBoolean(PROP_logExits);
+        String fn = System.getProperty(PROP_polygonFile);
+        try {
+            if ((fn!=null)&&!fn.isEmpty()) {
+                readPolygon(new File(fn));
+            } else {
+                fn = System.getProperty(PROP_maskFile);
+                if ((fn!=null)&&!fn.isEmpty()) readMask(new File(fn));
+            }
+        } catch (IOException|RuntimeException ex) {
+            logger.log(Level.WARNING,"Could not read region of interest from "+fn+". No ROI set.",ex);
+        }
+    }
+
+    /**
+     * Reads an ROI polygon from a text file with one "lon, lat" vertex per line.
+     * Blank lines and lines starting with "#" are skipped.
+     *
+     * @param file - the polygon file
+     * @throws IOException
+     */
+    public static void readPolygon(File file) throws IOException {
+        List<double[]> vertices = new ArrayList<>();
+        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line=br.readLine())!=null) {
+                line = line.trim();
+                if (line.isEmpty()||line.startsWith("#")) continue;
+                String[] strv = line.split("[,\\s]+");
+                vertices.add(new double[]{Double.parseDouble(strv[0]),Double.parseDouble(strv[1])});
+            }
+        }
+        double[] lons = new double[vertices.size()];
+        double[] lats = new double[vertices.size()];
+        for (int v=0;v<lons.length;v++) {
+            lons[v] = vertices.get(v)[0];
+            lats[v] = vertices.get(v)[1];
+        }
+        setPolygon(lons,lats);
+        logger.info("Set region of interest from polygon file "+file.getPath());
+    }
+
+    /**
+     * Reads an ROI mask from a text file with one line per J, each with one
+     * value per I. Non-zero values are inside the ROI.
+     *
+     * @param file - the mask file
+     * @throws IOException
+     */
+    public static void readMask(File file) throws IOException {
+        List<boolean[]> rows = new ArrayList<>();
+        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line=br.readLine())!=null) {
+                line = line.trim();
+                if (line.startsWith("#")) continue;
+                String[] strv = line.isEmpty() ? new String[0] : line.split("[,\\s]+");
+                boolean[] row = new boolean[strv.length];
+                for (int i=0;i<strv.length;i++) row[i] = Double.parseDouble(strv[i])!=0.0;
+                rows.add(row);
+            }
+        }
+        setMask(rows.toArray(new boolean[rows.size()][]));
+        logger.info("Set region of interest from mask file "+file.getPath());
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * SpatialReorder.java
+ *
+ * Created on October 19, 2026.
+ *
+ */
+
+package wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+import wts.models.DisMELS.framework.LifeStageInterface;
+import wts.roms.model.LagrangianParticle;
+
+/**
+ * Reorders a population of individuals along a space-filling curve through
+ * their horizontal grid positions (IJ), so that individuals stepped one
+ * after the other are close together and interpolation from the ocean
+ * model fields touches memory coherently.
+ *
+ * The curve is a Hilbert curve by default, or a Morton (Z-order) curve if
+ * the system property PROP_curve is "morton". Positions are binned into
+ * SUBCELLS x SUBCELLS bins per grid cell before computing the curve index.
+ * Individuals in the same bin (or without a position) keep the order of
+ * their ids, so the new order depends only on the positions and ids and is
+ * the same from run to run.
+ *
+ * The sort works on primitive arrays: the indices are first put in id order
+ * (a stable merge sort, skipped if the list is already in id order), then
+ * the curve index and the id rank are packed into one long per individual
+ * and sorted with Arrays.sort(long[]). For grids too large for both to fit
+ * in a long, the id-ordered indices are merge sorted by curve index instead.
+ *
+ * An instance reorders a population every N calls to step(...), with N
+ * given by the constructor or, by default, the system property
+ * PROP_interval (0, the default, turns reordering off). The static sort(...)
+ * reorders a list once.
+ *
+ * @author agent
+ */
+public class SpatialReorder {
+
+    /** system property giving the reordering interval (in time steps; 0 for none) */
+    public static final String PROP_interval =
+            "wts.models.DisMELS.IBMs.ArrowtoothFlounder.spatialReorderInterval";
+    /** system property giving the curve ("hilbert" or "morton") */
+    public static final String PROP_curve =
+            "wts.models.DisMELS.IBMs.ArrowtoothFlounder.spatialReorderCurve";
+
+    /** bins per grid cell in each direction */
+    public static final int SUBCELLS = 4;
+
+    private static final Logger logger = Logger.getLogger(SpatialReorder.class.getName());
+
+    /** flag to use the Morton curve instead of the Hilbert curve */
+    private static final boolean useMorton = "morton".equalsIgnoreCase(System.getProperty(PROP_curve));
+
+    /** reordering interval (time steps) */
+    private final int interval;
+    /** number of calls to step(...) */
+    private long nSteps = 0;
+
+    /**
+     * Creates an instance using the interval given by PROP_interval.
+     */
+    public SpatialReorder() {
+        this(Math.max(0,Integer.getInteger(PROP_interval,0)));
+    }
+
+    /**
+     * Creates an instance.
+     *
+     * @param interval - reordering interval (time steps; 0 for none)
+     */
+    public SpatialReorder(int interval) {
+        this.interval = interval;
+    }
+
+    /**
+     * Gets the reordering interval.
+     *
+     * @return - the interval (time steps; 0 for none)
+     */
+    public int getInterval() {
+        return interval;
+    }
+
+    /**
+     * Call once per time step, before the population is stepped. Reorders
+     * the population in place if it is due.
+     *
+     * @param lhss - the population (modified)
+     * @return - true if the population was reordered
+     */
+    public boolean step(List<? extends LifeStageInterface> lhss) {
+        if ((interval<=0)||((nSteps++)%interval!=0)) return false;
+        sort(lhss);
+        return true;
+    }
+
+    /**
+     * Reorders a list of individuals in place along the space-filling curve.
+     *
+     * @param lhss - the individuals (modified)
+     */
+    public static <T extends LifeStageInterface> void sort(List<T> lhss) {
+        int n = lhss.size();
+        if (n<2) return;
+        long t0 = System.nanoTime();
+        //bin the positions and find the extent of the bins
+        long[] bi = new long[n], bj = new long[n];
+        long maxBin = 0;
+        for (int k=0;k<n;k++) {
+            LagrangianParticle lp = lhss.get(k).getLagrangianParticle();
+            double[] pos = (lp!=null) ? lp.getIJK() : null;
+            if ((pos==null)||Double.isNaN(pos[0])||Double.isNaN(pos[1])) {
+                bi[k] = bj[k] = -1;
+                continue;
+            }
+            bi[k] = Math.max(0L,(long) Math.floor(pos[0]*SUBCELLS));
+            bj[k] = Math.max(0L,(long) Math.floor(pos[1]*SUBCELLS));
+            maxBin = Math.max(maxBin,Math.max(bi[k],bj[k]));
+        }
+        int order = 1;
+        while ((order<31)&&((1L<<order)<=maxBin)) order++;
+        //put the indices in id order
+        long[] ids = new long[n];
+        boolean inOrder = true;
+        for (int k=0;k<n;k++) {
+            ids[k] = lhss.get(k).getID();
+            if ((k>0)&&(ids[k]<ids[k-1])) inOrder = false;
+        }
+        int[] byID = new int[n];
+        for (int k=0;k<n;k++) byID[k] = k;
+        if (!inOrder) mergeSort(byID,new int[n],ids,0,n);
+        //curve index (individuals without a position go last)
+        long missing = 1L<<(2*order);
+        long[] keys = new long[n];
+        for (int k=0;k<n;k++) {
+            keys[k] = (bi[k]<0) ? missing :
+                      (useMorton ? mortonIndex(bi[k],bj[k]) : hilbertIndex(order,bi[k],bj[k]));
+        }
+        //sort by curve index, then id rank
+        int[] idx;
+        int rankBits = 64-Long.numberOfLeadingZeros(n-1);
+        if (2*order+1+rankBits<=63) {
+            long[] packed = new long[n];
+            for (int r=0;r<n;r++) packed[r] = (keys[byID[r]]<<rankBits)|r;
+            Arrays.sort(packed);
+            long mask = (1L<<rankBits)-1;
+            idx = new int[n];
+            for (int k=0;k<n;k++) idx[k] = byID[(int) (packed[k]&mask)];
+        } else {
+            idx = byID;
+            mergeSort(idx,new int[n],keys,0,n);
+        }
+        Object[] sorted = new Object[n];
+        for (int k=0;k<n;k++) sorted[k] = lhss.get(idx[k]);
+        for (int k=0;k<n;k++) {
+            @SuppressWarnings("unchecked")
+            T lhs = (T) sorted[k];
+            lhss.set(k,lhs);
+        }
+        logger.fine("Reordered "+n+" individuals in "+((System.nanoTime()-t0)/1000)+" us");
+    }
+
+    /**
+     * Stable merge sort of indices by key.
+     */
+    private static void mergeSort(int[] idx, int[] tmp, long[] keys, int lo, int hi) {
+        if (hi-lo<2) return;
+        int mid = (lo+hi)>>>1;
+        mergeSort(idx,tmp,keys,lo,mid);
+        mergeSort(idx,tmp,keys,mid,hi);
+        if (keys[idx[mid-1]]<=keys[idx[mid]]) return;//already in order
+        System.arraycopy(idx,lo,tmp,lo,hi-lo);
+        int i = lo, j = mid;
+        for (int k=lo;k<hi;k++) {
+            if ((j>=hi)||((i<mid)&&(keys[tmp[i]]<=keys[tmp[j]]))) idx[k] = tmp[i++];
+            else idx[k] = tmp[j++];
+        }
+    }
+
+    /**
+     * Computes the Morton (Z-order) index of a bin by interleaving the bits
+     * of its coordinates.
+     *
+     * @param x - bin index in I (0 to 2^31-1)
+     * @param y - bin index in J (0 to 2^31-1)
+     * @return
+     */
+    public static long mortonIndex(long x, long y) {
+        return spread(x)|(spread(y)<<1);
+    }
+
+    private static long spread(long v) {
+        v &= 0x7fffffffL;
+        v = (v|(v<<16))&0x0000ffff0000ffffL;
+        v = (v|(v<<8)) &0x00ff00ff00ff00ffL;
+        v = (v|(v<<4)) &0x0f0f0f0f0f0f0f0fL;
+        v = (v|(v<<2)) &0x3333333333333333L;
+        v = (v|(v<<1)) &0x5555555555555555L;
+        return v;
+    }
+
+    /**
+     * Computes the index of a bin along a Hilbert curve covering a
+     * 2^order x 2^order square.
+     *
+     * @param order - curve order (1 to 31)
+     * @param x     - bin index in I (0 to 2^order-1)
+     * @param y     - bin index in J (0 to 2^order-1)
+     * @return
+     */
+    public static long hilbertIndex(int order, long x, long y) {
+        long d = 0;
+        for (long s=1L<<(order-1);s>0;s>>=1) {
+            long rx = ((x&s)!=0) ? 1 : 0;
+            long ry = ((y&s)!=0) ? 1 : 0;
+            d += s*s*((3*rx)^ry);
+            //rotate the quadrant
+            if (ry==0) {
+                if (rx==1) {
+                    x = s-1-x;
+                    y = s-1-y;
+                }
+                long t = x;
+                x = y;
+                y = t;
+            }
+        }
+        return d;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * StageExits.java
+ *
+ * Created on October 19, 2026.
+ *
+ */
+
+package wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import wts.models.DisMELS.framework.LifeStageInterface;
+import wts.roms.model.Interpolator3D;
+
+/**
+ * Checks whether an individual has left the grid or the region of interest
+ * (see RegionOfInterest) at the end of a time step, and handles the exit
+ * the same way for all stages: the individual is set dead and inactive, a
+ * GRID_EXIT or ROI_EXIT event is published (see LifeStageEvents), grid
+ * exits are added to GridExitSummary and ROI exits are logged if
+ * RegionOfInterest.getLogExits() is true.
+ *
+ * The stage's attributes should be up to date (or marked for updating)
+ * before calling check(...), since they are used to log ROI exits.
+ *
+ * @author agent
+ */
+public class StageExits {
+
+    /** result of check(...) */
+    public enum Exit {
+        /** the individual is still in the grid and the region of interest */
+        NONE,
+        /** the individual reached the grid edge */
+        GRID,
+        /** the individual left the region of interest */
+        ROI
+    }
+
+    private static final Logger logger = Logger.getLogger(StageExits.class.getName());
+
+    private StageExits(){}
+
+    /**
+     * Checks whether an individual has left the grid or the region of
+     * interest, and handles the exit if it has.
+     *
+     * @param lhs    - the individual
+     * @param i3d    - the interpolator
+     * @param tol    - tolerance for the grid edge test
+     * @param pos    - position as IJK
+     * @param time   - model time (s)
+     * @param number - number of individuals represented
+     * @param lat    - latitude
+     * @param lon    - longitude
+     * @param depth  - depth (m)
+     * @return - the exit (NONE if the individual has not left)
+     */
+    public static Exit check(LifeStageInterface lhs, Interpolator3D i3d, double tol, double[] pos,
+                             double time, double number, double lat, double lon, double depth) {
+        if (i3d.isAtGridEdge(pos,tol)) {
+            lhs.setAlive(false);
+            lhs.setActive(false);
+            if (LifeStageEvents.isEnabled()) LifeStageEvents.fire(LifeStageEvent.Type.GRID_EXIT,lhs,time,number,lat,lon,depth);
+            GridExitSummary.record(lhs.getTypeName(),time,number,pos);
+            if (logger.isLoggable(Level.FINE)) {
+                logger.fine("Indiv "+lhs.getID()+" exited grid at ["+pos[0]+","+pos[1]+"]: "+i3d.getGridCellID(pos,tol));
+            }
+            return Exit.GRID;
+        }
+        if (RegionOfInterest.isOutside(i3d,pos)) {
+            lhs.setAlive(false);
+            lhs.setActive(false);
+            if (LifeStageEvents.isEnabled()) LifeStageEvents.fire(LifeStageEvent.Type.ROI_EXIT,lhs,time,number,lat,lon,depth);
+            if (RegionOfInterest.getLogExits()) {
+                logger.info("Indiv "+lhs.getID()+" left region of interest: "+lhs.getAttributes().getCSV());
+            }
+            return Exit.ROI;
+        }
+        return Exit.NONE;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * StageOutput.java
+ *
+ * Created on October 19, 2026.
+ *
+ */
+
+package wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Opens writers for stage output (e.g., getReport() lines), compressing
+ * the output with ParallelGzipOutputStream for selected stages.
+ * 
+ * Stages are selected by type name with setCompressed(...) or with the 
+ * system property PROP_compressedStages (a comma-separated list of stage 
+ * type names, or "*" for all stages). Compressed files get the suffix ".gz".
+ * 
+ * The stages only provide their output as strings (getReport()); the files
+ * are opened and written by the framework, not by this module. Selecting a
+ * stage here therefore only has an effect where the framework's output 
+ * writer (or another tool) opens its files through openStream(...) or 
+ * openWriter(...).
+ * 
+ * @author agent
+ */
+public class StageOutput {
+    
+    /** system property listing stage type names whose output is compressed */
+    public static final String PROP_compressedStages = 
+            "wts.models.DisMELS.IBMs.ArrowtoothFlounder.compressedOutputStages";
+    /** suffix for compressed files */
+    public static final String SUFFIX_GZ = ".gz";
+    
+    /** type names of stages with compressed output ("*" for all) */
+    private static final Set<String> compressed = new HashSet<>();
+    
+    static {
+        String str = System.getProperty(PROP_compressedStages);
+        if (str!=null) {
+            for (String s: str.split(",")) {
+                if (!s.trim().isEmpty()) compressed.add(s.trim());
+            }
+        }
+    }
+    
+    private StageOutput(){}
+    
+    /**
+     * Sets whether output for a stage is compressed.
+     * 
+     * @param typeName - stage type name (or "*" for all stages)
+     * @param b        - true to compress
+     */
+    public static synchronized void setCompressed(String typeName, boolean b) {
+        if (b) compressed.add(typeName); else compressed.remove(typeName);
+    }
+    
+    /**
+     * Returns true if output for the stage is compressed.
+     * 
+     * @param typeName - stage type name
+     * @return 
+     */
+    public static synchronized boolean isCompressed(String typeName) {
+        return compressed.contains(typeName)||compressed.contains("*");
+    }
+    
+    /**
+     * Opens an output stream for a stage.
+     * 
+     * @param typeName - stage type name
+     * @param file     - output file (".gz" is appended if compressed and not already present)
+     * @return 
+     * @throws IOException 
+     */
+    public static OutputStream openStream(String typeName, File file) throws IOException {
+        if (isCompressed(typeName)) {
+            if (!file.getName().endsWith(SUFFIX_GZ)) file = new File(file.getPath()+SUFFIX_GZ);
+            return new ParallelGzipOutputStream(new FileOutputStream(file));
+        }
+        return new BufferedOutputStream(new FileOutputStream(file),1<<16);
+    }
+    
+    /**
+     * Opens a writer for a stage.
+     * 
+     * @param typeName - stage type name
+     * @param file     - output file (".gz" is appended if compressed and not already present)
+     * @return 
+     * @throws IOException 
+     */
+    public static PrintWriter openWriter(String typeName, File file) throws IOException {
+        return new PrintWriter(new BufferedWriter(
+                new OutputStreamWriter(openStream(typeName,file),ColumnarAttributesWriter.UTF8),1<<16));
+    }
+}
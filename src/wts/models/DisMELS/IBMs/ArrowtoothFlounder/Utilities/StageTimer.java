@@ -0,0 +1,192 @@
+/*
+ * StageTimer.java
+ *
+ * Created on October 19, 2026.
+ *
+ */
+
+package wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Cumulative timing of the phases of a life stage's time step, published 
+ * through JMX as 
+ *      wts.models.DisMELS.IBMs.ArrowtoothFlounder:type=StageTimer,name=[stage]
+ * 
+ * Timing is off by default. It is switched on through the MBean's Enabled
+ * attribute, by setEnabled(true) or by setting the system property given by
+ * PROP_enabled to "true". When it is off, a timed method only reads one 
+ * volatile flag per call.
+ * 
+ * Usage in a stage class:
+ * <pre>
+ *      boolean timing = StageTimer.isTimingEnabled();
+ *      long t0 = timing ? System.nanoTime() : 0L;
+ *      calcUVW(...);
+ *      if (timing) t0 = timer.lap(StageTimer.CALC_UVW,t0);
+ * </pre>
+ * 
+ * Times and counts are accumulated in striped counters (one stripe per 
+ * thread id modulo NUM_STRIPES) so threads stepping individuals of the same
+ * stage do not contend for the same counters.
+ * 
+ * @author agent
+ */
+public class StageTimer implements StageTimerMBean {
+    
+    /** system property to switch timing on at startup */
+    public static final String PROP_enabled = 
+            "wts.models.DisMELS.IBMs.ArrowtoothFlounder.stageTiming";
+    /** JMX domain for the MBeans */
+    public static final String JMX_DOMAIN = "wts.models.DisMELS.IBMs.ArrowtoothFlounder";
+    
+    /** phase: calculating movement rates (calcUVW/calcUV) */
+    public static final int CALC_UVW    = 0;
+    /** phase: Lagrangian particle predictor/corrector steps */
+    public static final int TRACKING    = 1;
+    /** phase: updatePosition */
+    public static final int POSITION    = 2;
+    /** phase: interpolateEnvVars */
+    public static final int ENVIRONMENT = 3;
+    /** phase: updateNum and updateAge */
+    public static final int BIOLOGY     = 4;
+    /** phase: updateStage or updateSize */
+    public static final int GROWTH      = 5;
+    /** phase: getReport */
+    public static final int REPORT      = 6;
+    /** names of the phases */
+    private static final String[] PHASE_NAMES = new String[]{"calcUVW","predictor/corrector",
+                                                             "updatePosition","interpolateEnvVars",
+                                                             "updateNum/Age","updateStage/Size",
+                                                             "getReport"};
+    /** number of phases */
+    public static final int NUM_PHASES = PHASE_NAMES.length;
+    
+    /** number of counter stripes (a power of 2) */
+    private static final int NUM_STRIPES = 16;
+    /** longs per stripe (times and counts for each phase, padded to separate cache lines) */
+    private static final int STRIDE = 2*NUM_PHASES+8;
+    
+    /** flag indicating timing is on */
+    private static volatile boolean enabled = Boolean.getBoolean(PROP_enabled);
+    /** timers, by stage name */
+    private static final Map<String,StageTimer> mapTimers = new HashMap<>();
+    
+    private static final Logger logger = Logger.getLogger(StageTimer.class.getName());
+    
+    /** name of the stage */
+    private final String stageName;
+    /** striped counters: times at [stripe*STRIDE+2*phase], counts at [...+1] */
+    private final AtomicLongArray counters = new AtomicLongArray(NUM_STRIPES*STRIDE);
+    
+    /**
+     * Gets the timer for the given stage, creating and registering it with 
+     * the platform MBean server if necessary.
+     * 
+     * @param stageName - name of the stage
+     * @return 
+     */
+    public static synchronized StageTimer getInstance(String stageName) {
+        StageTimer timer = mapTimers.get(stageName);
+        if (timer==null) {
+            timer = new StageTimer(stageName);
+            mapTimers.put(stageName,timer);
+            try {
+                ObjectName on = new ObjectName(JMX_DOMAIN+":type=StageTimer,name="+stageName);
+                if (!ManagementFactory.getPlatformMBeanServer().isRegistered(on)) {
+                    ManagementFactory.getPlatformMBeanServer().registerMBean(timer,on);
+                }
+            } catch (JMException|SecurityException ex) {
+                logger.log(Level.WARNING,"Could not register StageTimer MBean for "+stageName,ex);
+            }
+        }
+        return timer;
+    }
+    
+    /**
+     * Returns true if timing is switched on.
+     * 
+     * @return 
+     */
+    public static boolean isTimingEnabled() {
+        return enabled;
+    }
+    
+    private StageTimer(String stageName) {
+        this.stageName = stageName;
+    }
+    
+    /**
+     * Adds the time since t0 to the given phase.
+     * 
+     * @param phase - the phase
+     * @param t0    - start time for the phase (from System.nanoTime())
+     * @return - the current time (from System.nanoTime()), to start the next phase
+     */
+    public long lap(int phase, long t0) {
+        long t1 = System.nanoTime();
+        int idx = ((int)Thread.currentThread().getId()&(NUM_STRIPES-1))*STRIDE+2*phase;
+        counters.addAndGet(idx,t1-t0);
+        counters.incrementAndGet(idx+1);
+        return t1;
+    }
+    
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean b) {
+        enabled = b;
+    }
+
+    @Override
+    public String[] getPhaseNames() {
+        return PHASE_NAMES.clone();
+    }
+
+    @Override
+    public long[] getTotalNanos() {
+        return sum(0);
+    }
+
+    @Override
+    public long[] getCallCounts() {
+        return sum(1);
+    }
+    
+    private long[] sum(int offset) {
+        long[] res = new long[NUM_PHASES];
+        for (int s=0;s<NUM_STRIPES;s++) {
+            for (int p=0;p<NUM_PHASES;p++) res[p] += counters.get(s*STRIDE+2*p+offset);
+        }
+        return res;
+    }
+
+    @Override
+    public String getSummary() {
+        long[] nanos = getTotalNanos();
+        long[] counts = getCallCounts();
+        StringBuilder sb = new StringBuilder(stageName).append(" timings (ms, calls, us/call):\n");
+        for (int p=0;p<NUM_PHASES;p++) {
+            sb.append("    ").append(PHASE_NAMES[p]).append(": ")
+              .append(nanos[p]/1000000).append(", ").append(counts[p]).append(", ")
+              .append((counts[p]>0) ? (nanos[p]/1000.0/counts[p]) : 0.0).append("\n");
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public void reset() {
+        for (int i=0;i<counters.length();i++) counters.set(i,0L);
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * StageTimerMBean.java
+ *
+ * Created on October 19, 2026.
+ *
+ */
+
+package wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities;
+
+/**
+ * JMX management interface for StageTimer.
+ * 
+ * @author agent
+ */
+public interface StageTimerMBean {
+    
+    /** Returns true if timing is switched on (for all stages). */
+    public boolean isEnabled();
+    
+    /** Switches timing on or off (for all stages). */
+    public void setEnabled(boolean b);
+    
+    /** Gets the names of the timed phases. */
+    public String[] getPhaseNames();
+    
+    /** Gets the cumulative time (ns) spent in each phase. */
+    public long[] getTotalNanos();
+    
+    /** Gets the number of times each phase was timed. */
+    public long[] getCallCounts();
+    
+    /** Gets a one-line-per-phase summary of the timings. */
+    public String getSummary();
+    
+    /** Resets the timings to zero. */
+    public void reset();
+}
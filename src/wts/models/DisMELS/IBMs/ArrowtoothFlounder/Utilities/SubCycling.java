@@ -0,0 +1,62 @@
+/*
+ * SubCycling.java
+ *
+ * Created on October 19, 2026.
+ *
+ */
+
+package wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities;
+
+import wts.roms.model.Grid3D;
+import wts.roms.model.Interpolator3D;
+import wts.roms.model.LagrangianParticle;
+
+/**
+ * Movement for stages that are updated once every N model time steps
+ * (see AdultStage and BenthicJuvenileStage, parameter "steps per update").
+ *
+ * The framework's particle tracker always advances a particle over one
+ * model time step. A sub-cycled stage runs the tracker once per update and
+ * scales the horizontal displacement by the number of steps since the last
+ * update (i.e., forward Euler over the aggregated time step, using the
+ * currents at the update time). The stage's swimming velocities should be
+ * computed for the aggregated time step, so a random walk has the variance
+ * of the aggregated step after scaling.
+ *
+ * If the scaled position would be at or beyond the grid edge, or over land,
+ * the particle is left at the single-step position, so the grid edge and
+ * land are never crossed by the scaling itself.
+ *
+ * @author agent
+ */
+public class SubCycling {
+
+    private SubCycling(){}
+
+    /**
+     * Scales the displacement of a particle made by one tracker step to
+     * cover several model time steps.
+     *
+     * @param i3d    - the interpolator
+     * @param lp     - the particle, after the tracker step
+     * @param pos0   - the position (IJK) before the tracker step
+     * @param nSteps - number of model time steps the displacement should cover
+     * @param tol    - tolerance for the grid edge test
+     * @return - the new position (IJK)
+     */
+    public static double[] extrapolate(Interpolator3D i3d, LagrangianParticle lp,
+                                       double[] pos0, int nSteps, double tol) {
+        double[] pos1 = lp.getIJK();
+        if (nSteps<=1) return pos1;
+        double[] pos = new double[]{pos0[0]+nSteps*(pos1[0]-pos0[0]),
+                                    pos0[1]+nSteps*(pos1[1]-pos0[1]),
+                                    pos1[2]};
+        Grid3D grid = i3d.getGrid();
+        if ((pos[0]<0)||(pos[1]<0)||(pos[0]>grid.getL()-1)||(pos[1]>grid.getM()-1)) return pos1;
+        if (i3d.isAtGridEdge(pos,tol)) return pos1;
+        double h = i3d.interpolateBathymetricDepth(pos);
+        if (!(h>0)) return pos1;//land (or undefined)
+        lp.setIJK(pos[0],pos[1],pos[2]);
+        return pos;
+    }
+}
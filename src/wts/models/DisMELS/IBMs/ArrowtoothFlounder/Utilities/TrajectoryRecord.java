@@ -0,0 +1,40 @@
+/*
+ * TrajectoryRecord.java
+ *
+ * Created on October 19, 2026.
+ *
+ */
+
+package wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities;
+
+/**
+ * Physical position and environment of an individual at the end of one 
+ * time step, as written by TrajectoryRecorder and read by TrajectoryReplay.
+ * 
+ * @author agent
+ */
+public class TrajectoryRecord {
+    
+    /** id of the individual */
+    public long id;
+    /** time step (s) */
+    public double dt;
+    /** position as IJK */
+    public final double[] pos = new double[3];
+    /** latitude */
+    public double lat;
+    /** longitude */
+    public double lon;
+    /** depth (m, positive) */
+    public double depth;
+    /** total depth (m) at the individual's position */
+    public double totalDepth;
+    /** in situ temperature (deg C) */
+    public double temperature;
+    /** in situ salinity */
+    public double salinity;
+    /** in situ water density (NaN if the stage does not use it) */
+    public double rho;
+    /** flag indicating the individual exited the grid during the step */
+    public boolean exitedGrid;
+}
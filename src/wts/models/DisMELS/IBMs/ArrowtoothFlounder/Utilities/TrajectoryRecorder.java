@@ -0,0 +1,268 @@
+/*
+ * TrajectoryRecorder.java
+ *
+ * Created on October 19, 2026.
+ *
+ */
+
+package wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import wts.models.DisMELS.framework.LifeStageAttributesInterface;
+import wts.models.DisMELS.framework.LifeStageInterface;
+
+/**
+ * Records the physical path and environment of individuals to a binary file
+ * so that their biology can be replayed later for other parameter values
+ * without re-running the particle tracking (see TrajectoryReplay).
+ * 
+ * Recording is started by calling start(File) or by setting the system 
+ * property given by PROP_trajectoryFile to the name of the output file.
+ * 
+ * The file is written using a DataOutputStream:
+ *      header      - MAGIC (int), VERSION (int)
+ *      begin record - REC_BEGIN (byte), id (long), LHS class name (String),
+ *                     number of attribute values (int), typeName and attribute 
+ *                     values (Strings, in getKeys() order)
+ *      step record  - REC_STEP (byte), id (long), dt, I, J, K, lat, lon, 
+ *                     depth, total depth, temperature, salinity, rho (doubles),
+ *                     exited grid flag (boolean)
+ * Strings are written as an int byte count followed by UTF-8 bytes.
+ * 
+ * Records are encoded by the calling thread without locking and added to a
+ * lock-free queue. Once QUEUE_SIZE records are queued, the next caller that 
+ * finds the file free writes the queued records to it (other callers do 
+ * not wait); stop() writes the rest. The queue is first in, first out, so 
+ * each individual's records are written in the order they were made.
+ * 
+ * @author agent
+ */
+public class TrajectoryRecorder {
+    
+    /** system property used to start recording to a file */
+    public static final String PROP_trajectoryFile = 
+            "wts.models.DisMELS.IBMs.ArrowtoothFlounder.trajectoryFile";
+    /** file identifier */
+    public static final int MAGIC = 0x41544652;
+    /** file format version */
+    public static final int VERSION = 1;
+    /** record type for the start of an individual's record */
+    public static final byte REC_BEGIN = 'B';
+    /** record type for a time step */
+    public static final byte REC_STEP = 'S';
+    /** number of queued records at which they are written to the file */
+    public static final int QUEUE_SIZE = 4096;
+    /** size of a step record (bytes) */
+    private static final int STEP_SIZE = 1+8+11*8+1;
+    
+    /** stream being recorded to (null if not recording) */
+    private static volatile DataOutputStream dos = null;
+    /** encoded records waiting to be written */
+    private static final ConcurrentLinkedQueue<byte[]> queue = new ConcurrentLinkedQueue<>();
+    /** number of records in the queue */
+    private static final AtomicInteger numQueued = new AtomicInteger();
+    /** lock held while writing to the file */
+    private static final ReentrantLock writeLock = new ReentrantLock();
+    /** flag indicating PROP_trajectoryFile has been checked */
+    private static volatile boolean checkedProperty = false;
+    
+    private static final Logger logger = Logger.getLogger(TrajectoryRecorder.class.getName());
+    
+    private TrajectoryRecorder(){}
+    
+    /**
+     * Starts recording to the given file, closing any current recording.
+     * 
+     * @param file - the output file
+     * @throws IOException 
+     */
+    public static synchronized void start(File file) throws IOException {
+        stop();
+        DataOutputStream s = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file),1<<16));
+        s.writeInt(MAGIC);
+        s.writeInt(VERSION);
+        queue.clear();//drop records made after the last recording stopped
+        numQueued.set(0);
+        dos = s;
+        checkedProperty = true;
+        logger.info("Recording trajectories to "+file.getPath());
+    }
+    
+    /**
+     * Stops recording, writes any queued records and closes the file.
+     */
+    public static synchronized void stop() {
+        writeLock.lock();
+        try {
+            if (dos!=null) {
+                drain();
+                if (dos==null) return;//failed while writing
+                try {
+                    dos.close();
+                } catch (IOException ex) {
+                    logger.log(Level.WARNING,"Error closing trajectory file",ex);
+                }
+                dos = null;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+    
+    /**
+     * Returns true if trajectories are being recorded.
+     * 
+     * @return 
+     */
+    public static boolean isRecording() {
+        if (!checkedProperty) startFromProperty();
+        return dos!=null;
+    }
+    
+    private static synchronized void startFromProperty() {
+        if (checkedProperty) return;
+        checkedProperty = true;
+        String fn = System.getProperty(PROP_trajectoryFile);
+        if ((fn==null)||fn.isEmpty()) return;
+        try {
+            start(new File(fn));
+            Runtime.getRuntime().addShutdownHook(new Thread(){
+                @Override
+                public void run() {
+                    TrajectoryRecorder.stop();
+                }
+            });
+        } catch (IOException ex) {
+            logger.log(Level.WARNING,"Could not record trajectories to "+fn,ex);
+        }
+    }
+    
+    /**
+     * Writes the record starting an individual's path. The individual's 
+     * attributes should be up to date.
+     * 
+     * @param lhs - the individual
+     */
+    public static void begin(LifeStageInterface lhs) {
+        if (dos==null) return;
+        LifeStageAttributesInterface atts = lhs.getAttributes();
+        String[] keys = atts.getKeys();
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bos)) {
+            out.writeByte(REC_BEGIN);
+            out.writeLong(lhs.getID());
+            writeString(out,lhs.getClass().getName());
+            out.writeInt(keys.length+1);
+            writeString(out,atts.getTypeName());
+            for (String key: keys) writeString(out,String.valueOf(atts.getValue(key)));
+        } catch (IOException ex) {
+            //not thrown by a ByteArrayOutputStream
+        }
+        enqueue(bos.toByteArray());
+    }
+    
+    /**
+     * Writes the physical state of an individual at the end of a time step.
+     * 
+     * @param id          - individual's id
+     * @param dt          - time step (s)
+     * @param pos         - position as IJK
+     * @param lat         - latitude
+     * @param lon         - longitude
+     * @param depth       - depth (m)
+     * @param totalDepth  - total depth (m)
+     * @param temperature - in situ temperature
+     * @param salinity    - in situ salinity
+     * @param rho         - in situ water density
+     * @param exitedGrid  - true if the individual exited the grid
+     */
+    public static void record(long id, double dt, double[] pos, 
+                              double lat, double lon, 
+                              double depth, double totalDepth,
+                              double temperature, double salinity, double rho,
+                              boolean exitedGrid) {
+        if (dos==null) return;
+        ByteBuffer bb = ByteBuffer.allocate(STEP_SIZE);//big-endian, as DataOutputStream
+        bb.put(REC_STEP);
+        bb.putLong(id);
+        bb.putDouble(dt);
+        bb.putDouble(pos[0]);
+        bb.putDouble(pos[1]);
+        bb.putDouble(pos[2]);
+        bb.putDouble(lat);
+        bb.putDouble(lon);
+        bb.putDouble(depth);
+        bb.putDouble(totalDepth);
+        bb.putDouble(temperature);
+        bb.putDouble(salinity);
+        bb.putDouble(rho);
+        bb.put((byte)(exitedGrid ? 1 : 0));
+        enqueue(bb.array());
+    }
+    
+    /**
+     * Queues an encoded record, and writes the queued records to the file
+     * if there are enough of them and no other thread is writing.
+     */
+    private static void enqueue(byte[] rec) {
+        queue.add(rec);
+        if ((numQueued.incrementAndGet()>=QUEUE_SIZE)&&writeLock.tryLock()) {
+            try {
+                drain();
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+    
+    /**
+     * Writes the queued records to the file. Call with writeLock held.
+     */
+    private static void drain() {
+        byte[] rec;
+        while ((rec=queue.poll())!=null) {
+            numQueued.decrementAndGet();
+            DataOutputStream s = dos;
+            if (s==null) continue;//not recording: drop
+            try {
+                s.write(rec);
+            } catch (IOException ex) {
+                fail(ex);
+            }
+        }
+    }
+    
+    private static void writeString(DataOutputStream out, String str) throws IOException {
+        byte[] b = str.getBytes("UTF-8");
+        out.writeInt(b.length);
+        out.write(b);
+    }
+    
+    /**
+     * Stops recording after a write error. Call with writeLock held.
+     */
+    private static void fail(IOException ex) {
+        logger.log(Level.SEVERE,"Error writing trajectory file. Recording stopped.",ex);
+        DataOutputStream s = dos;
+        dos = null;
+        if (s!=null) {
+            try {
+                s.close();
+            } catch (IOException ex1) {
+                //already failed
+            }
+        }
+    }
+}
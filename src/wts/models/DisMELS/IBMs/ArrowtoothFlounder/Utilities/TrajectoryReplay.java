@@ -0,0 +1,230 @@
+/*
+ * TrajectoryReplay.java
+ *
+ * Created on October 19, 2026.
+ *
+ */
+
+package wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+import wts.models.DisMELS.framework.LifeStageInterface;
+import wts.models.DisMELS.framework.LifeStageParametersInterface;
+
+/**
+ * Replays the biology of individuals over physical paths recorded by 
+ * TrajectoryRecorder, using (possibly) different stage parameters.
+ * 
+ * Each recorded stage segment is replayed independently: the individual is 
+ * re-created from the attribute values recorded when it started being 
+ * recorded and then stepped through its recorded positions and environment 
+ * using TrajectoryReplayable.stepFromRecord(...). As in a model run, stage 
+ * transitions are evaluated (via getMetamorphosedIndividuals(...)) after each
+ * step. When a replayed individual transitions, the new individual is 
+ * reported (with its state at the transition) and a single (non-super) 
+ * individual stops being replayed. The next stage itself is not replayed, 
+ * since its recorded path starts at the recorded transition, which may differ
+ * from the replayed one.
+ * 
+ * Several parameter variants (ensemble members) can be replayed together in 
+ * a single pass over the file. Each recorded individual is re-created once 
+ * per member and every step record is applied to all of them, so the file is 
+ * read (and the physics paid for) only once. Members are reported separately.
+ * 
+ * Only classes implementing TrajectoryReplayable are replayed. Results are
+ * only meaningful if movement does not depend on the parameters being changed.
+ * 
+ * @author agent
+ */
+public class TrajectoryReplay {
+    
+    /** the trajectory file */
+    private final File file;
+    /** replacement parameters for each ensemble member, by LHS class name */
+    private final List<Map<String,LifeStageParametersInterface>> members = new ArrayList<>();
+    
+    private static final Logger logger = Logger.getLogger(TrajectoryReplay.class.getName());
+    
+    /**
+     * Creates a replay for the given trajectory file.
+     * 
+     * @param file - file written by TrajectoryRecorder
+     */
+    public TrajectoryReplay(File file) {
+        this.file = file;
+        members.add(new HashMap<String,LifeStageParametersInterface>());
+    }
+    
+    /**
+     * Adds an ensemble member. The new member uses the recorded parameters
+     * until setParameters(member,...) is called for it.
+     * 
+     * @return - index of the new member
+     */
+    public int addMember() {
+        members.add(new HashMap<String,LifeStageParametersInterface>());
+        return members.size()-1;
+    }
+    
+    /**
+     * Gets the number of ensemble members (initially 1).
+     * 
+     * @return 
+     */
+    public int getNumberOfMembers() {
+        return members.size();
+    }
+    
+    /**
+     * Sets the parameters to use for replayed individuals of the given class
+     * in the first ensemble member.
+     * 
+     * @param lhsClassName - name of the LHS class
+     * @param params       - parameters to use
+     */
+    public void setParameters(String lhsClassName, LifeStageParametersInterface params) {
+        setParameters(0,lhsClassName,params);
+    }
+    
+    /**
+     * Sets the parameters to use for replayed individuals of the given class
+     * in the given ensemble member. The parameters object is shared by all 
+     * replayed individuals of the class in the member.
+     * 
+     * @param member       - index of the ensemble member
+     * @param lhsClassName - name of the LHS class
+     * @param params       - parameters to use
+     */
+    public void setParameters(int member, String lhsClassName, LifeStageParametersInterface params) {
+        members.get(member).put(lhsClassName,params);
+    }
+    
+    /**
+     * Replays all recorded segments for all ensemble members, writing the final 
+     * state of each replayed individual, and the initial state of each 
+     * individual created by a stage transition, (via getReport()) to the 
+     * writer for its member. A header line (via getReportHeader()) is written to each 
+     * writer before the first report for each LHS class.
+     * 
+     * @param outs - writers for the reports, one per ensemble member
+     * @return - the number of segments replayed (per member)
+     * @throws IOException
+     * @throws ClassNotFoundException
+     * @throws InstantiationException
+     * @throws IllegalAccessException 
+     */
+    public int run(PrintWriter... outs) throws IOException, ClassNotFoundException, 
+                                               InstantiationException, IllegalAccessException {
+        final int nM = members.size();
+        if (outs.length!=nM) {
+            throw new IllegalArgumentException("Expected "+nM+" writers but got "+outs.length);
+        }
+        Map<String,LifeStageInterface> mapFactories = new HashMap<>();
+        List<Set<String>> headersWritten = new ArrayList<>(nM);
+        for (int m=0;m<nM;m++) headersWritten.add(new HashSet<String>());
+        Map<Long,LifeStageInterface[]> mapActive = new HashMap<>();
+        TrajectoryRecord rec = new TrajectoryRecord();
+        int n = 0, nTrans = 0;
+        try (DataInputStream dis = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file),1<<16))) {
+            if ((dis.readInt()!=TrajectoryRecorder.MAGIC)||
+                    (dis.readInt()!=TrajectoryRecorder.VERSION)) {
+                throw new IOException(file.getPath()+" is not a trajectory file.");
+            }
+            while (true) {
+                byte type;
+                try {
+                    type = dis.readByte();
+                } catch (EOFException ex) {
+                    break;
+                }
+                if (type==TrajectoryRecorder.REC_BEGIN) {
+                    long id = dis.readLong();
+                    String cls = readString(dis);
+                    String[] strv = new String[dis.readInt()];
+                    for (int i=0;i<strv.length;i++) strv[i] = readString(dis);
+                    //a new segment with the same id ends the previous one
+                    report(mapActive.remove(id),outs,headersWritten);
+                    LifeStageInterface factory = mapFactories.get(cls);
+                    if (factory==null) {
+                        factory = (LifeStageInterface) Class.forName(cls).newInstance();
+                        mapFactories.put(cls,factory);
+                    }
+                    if (factory instanceof TrajectoryReplayable) {
+                        LifeStageInterface[] lhss = new LifeStageInterface[nM];
+                        for (int m=0;m<nM;m++) {
+                            lhss[m] = factory.createInstance(strv);
+                            LifeStageParametersInterface params = members.get(m).get(cls);
+                            if (params!=null) lhss[m].setParameters(params);
+                        }
+                        mapActive.put(id,lhss);
+                        n++;
+                    }
+                } else if (type==TrajectoryRecorder.REC_STEP) {
+                    rec.id          = dis.readLong();
+                    rec.dt          = dis.readDouble();
+                    rec.pos[0]      = dis.readDouble();
+                    rec.pos[1]      = dis.readDouble();
+                    rec.pos[2]      = dis.readDouble();
+                    rec.lat         = dis.readDouble();
+                    rec.lon         = dis.readDouble();
+                    rec.depth       = dis.readDouble();
+                    rec.totalDepth  = dis.readDouble();
+                    rec.temperature = dis.readDouble();
+                    rec.salinity    = dis.readDouble();
+                    rec.rho         = dis.readDouble();
+                    rec.exitedGrid  = dis.readBoolean();
+                    LifeStageInterface[] lhss = mapActive.get(rec.id);
+                    if (lhss!=null) {
+                        for (int m=0;m<nM;m++) {
+                            if (!lhss[m].isActive()) continue;
+                            ((TrajectoryReplayable) lhss[m]).stepFromRecord(rec);
+                            for (LifeStageInterface nLHS: lhss[m].getMetamorphosedIndividuals(rec.dt)) {
+                                report(m,nLHS,outs,headersWritten);
+                                nTrans++;
+                            }
+                        }
+                    }
+                } else {
+                    throw new IOException("Unknown record type '"+type+"' in "+file.getPath());
+                }
+            }
+        }
+        for (LifeStageInterface[] lhss: mapActive.values()) report(lhss,outs,headersWritten);
+        for (PrintWriter out: outs) out.flush();
+        logger.info("Replayed "+n+" recorded segments from "+file.getPath()+
+                    " ("+nTrans+" stage transitions)");
+        return n;
+    }
+    
+    private static void report(LifeStageInterface[] lhss, PrintWriter[] outs, 
+                               List<Set<String>> headersWritten) {
+        if (lhss==null) return;
+        for (int m=0;m<lhss.length;m++) report(m,lhss[m],outs,headersWritten);
+    }
+    
+    private static void report(int m, LifeStageInterface lhs, PrintWriter[] outs, 
+                               List<Set<String>> headersWritten) {
+        if (headersWritten.get(m).add(lhs.getClass().getName())) outs[m].println(lhs.getReportHeader());
+        outs[m].println(lhs.getReport());
+    }
+    
+    private static String readString(DataInputStream dis) throws IOException {
+        byte[] b = new byte[dis.readInt()];
+        dis.readFully(b);
+        return new String(b,"UTF-8");
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * TrajectoryReplayable.java
+ *
+ * Created on October 19, 2026.
+ *
+ */
+
+package wts.models.DisMELS.IBMs.ArrowtoothFlounder.Utilities;
+
+/**
+ * Interface for life stages whose biology can be replayed over a recorded
+ * physical path (see TrajectoryRecorder and TrajectoryReplay).
+ * 
+ * Replaying is only valid when the individual's movement does not depend on 
+ * the parameters being changed.
+ * 
+ * @author agent
+ */
+public interface TrajectoryReplayable {
+    
+    /**
+     * Advances the individual by one time step using the recorded position
+     * and environmental variables instead of moving the Lagrangian particle
+     * and interpolating the ocean model fields. The track is not updated.
+     * As after step(...), the caller must then check for stage transitions
+     * using getMetamorphosedIndividuals(...).
+     * 
+     * @param rec - the recorded physical state at the end of the time step
+     */
+    public void stepFromRecord(TrajectoryRecord rec);
+}